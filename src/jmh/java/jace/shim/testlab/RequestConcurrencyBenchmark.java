@@ -0,0 +1,120 @@
+package jace.shim.testlab;
+
+import jace.shim.testlab.utils.JsonUtils;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Fires a burst of concurrent GET /orders/{orderId} at the application running on the platform-thread Tomcat pool
+// and on virtual threads, with latency injected while each database connection is held
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestConcurrencyBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"200", "2000"})
+    private int concurrency;
+
+    @Param({"20"})
+    private long dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty(LatencyInjectingPostProcessor.LATENCY_PROPERTY, String.valueOf(dbLatencyMillis));
+        context = new SpringApplicationBuilder(TestLabApplication.class, LatencyInjectingPostProcessor.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.accept-count=" + concurrency,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+        client = HttpClient.newHttpClient();
+        HttpResponse<String> created = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders"))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        long orderId = JsonUtils.getMapper().readTree(created.body()).get("id").asLong();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders/" + orderId)).GET().build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        context.close();
+        System.clearProperty(LatencyInjectingPostProcessor.LATENCY_PROPERTY);
+    }
+
+    @Benchmark
+    public int burst() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+
+    // Registered as an extra source; wraps the pool first, so the concurrency limiter - when enabled - covers the delay
+    public static class LatencyInjectingPostProcessor implements BeanPostProcessor, Ordered {
+        static final String LATENCY_PROPERTY = "testlab.benchmark.db-latency-millis";
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return new LatentDataSource(dataSource, Long.getLong(LATENCY_PROPERTY, 0L));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    private static class LatentDataSource extends DelegatingDataSource {
+        private final long latencyMillis;
+
+        private LatentDataSource(DataSource targetDataSource, long latencyMillis) {
+            super(targetDataSource);
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+}
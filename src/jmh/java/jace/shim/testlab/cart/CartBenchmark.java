@@ -0,0 +1,37 @@
+package jace.shim.testlab.cart;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"10", "1000", "10000", "50000"})
+    private int lines;
+
+    // Builds a cart of the given size one line at a time, as repeated POST /carts/{cartId}/cart-lines would
+    @Benchmark
+    public Cart buildCart() {
+        Cart cart = new Cart(10L, 1000L, new ArrayList<>());
+        for (int i = 0; i < lines; i++) {
+            cart.addCartLine(new CartLine(1_000_000L + i, 10_000L + i, 1));
+        }
+        return cart;
+    }
+
+    // Builds the cart and then empties it from the front, the worst case for shifting list removal
+    @Benchmark
+    public Cart buildAndClearCart() {
+        Cart cart = buildCart();
+        for (int i = 0; i < lines; i++) {
+            cart.removeCartLine(new CartLine(1_000_000L + i, 10_000L + i, 1));
+        }
+        return cart;
+    }
+}
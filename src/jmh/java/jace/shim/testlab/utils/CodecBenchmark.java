@@ -0,0 +1,73 @@
+package jace.shim.testlab.utils;
+
+import jace.shim.testlab.cart.Cart;
+import jace.shim.testlab.cart.CartLine;
+import jace.shim.testlab.order.Order;
+import jace.shim.testlab.order.OrderLine;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Compares JSON and CBOR encode/decode time for the same cart or order; JsonUtilsTest compares their payload sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"cart", "order"})
+    private String payload;
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private Object value;
+    private Class<?> type;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() {
+        if ("cart".equals(payload)) {
+            List<CartLine> cartLines = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                cartLines.add(new CartLine(1_000_000L + i, 10_000L + i, i % 10 + 1));
+            }
+            value = new Cart(10L, 1000L, cartLines);
+            type = Cart.class;
+        } else {
+            List<OrderLine> orderLines = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                orderLines.add(new OrderLine(2_000_000L + i, 10_000L + i, i % 10 + 1));
+            }
+            value = new Order(20L, 1000L, orderLines);
+            type = Order.class;
+        }
+        json = JsonUtils.toJson(value).getBytes(StandardCharsets.UTF_8);
+        cbor = JsonUtils.toCbor(value);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return JsonUtils.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() {
+        return JsonUtils.toCbor(value);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return JsonUtils.fromJson(json, type);
+    }
+
+    @Benchmark
+    public Object decodeCbor() {
+        return JsonUtils.fromCbor(cbor, type);
+    }
+}
@@ -0,0 +1,50 @@
+package jace.shim.testlab.utils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilsBenchmark {
+
+    private final ZonedDateTime dateTime = ZonedDateTime.of(2024, 10, 1, 13, 45, 30, 0, ZoneId.of("Asia/Seoul"));
+    private final String defaultDate = "2024-10-01T13:45:30+09:00";
+    private final String kstDate = "2024-10-01 13:45:30";
+    private final String day = "2024-10-01";
+
+    @Benchmark
+    public String formatDefaultDate() {
+        return DateUtils.parseDefaultDateFormat(dateTime);
+    }
+
+    @Benchmark
+    public String formatKstDate() {
+        return DateUtils.parseKstDateFormat(dateTime);
+    }
+
+    @Benchmark
+    public String formatDefaultDay() {
+        return DateUtils.parseDefaultDayFormat(dateTime);
+    }
+
+    @Benchmark
+    public ZonedDateTime parseDefaultDate() {
+        return DateUtils.of(defaultDate);
+    }
+
+    @Benchmark
+    public ZonedDateTime parseKstDate() {
+        return DateUtils.of(kstDate, DateUtils.KST_DATE_FORMAT);
+    }
+
+    @Benchmark
+    public ZonedDateTime parseDay() {
+        return DateUtils.parseDateAtStartOfDay(day);
+    }
+}
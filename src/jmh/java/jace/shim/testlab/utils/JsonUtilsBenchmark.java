@@ -0,0 +1,77 @@
+package jace.shim.testlab.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jace.shim.testlab.cart.Cart;
+import jace.shim.testlab.cart.CartLine;
+import jace.shim.testlab.order.Order;
+import jace.shim.testlab.order.OrderLine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private Cart cart;
+    private Order order;
+    private String cartJson;
+    private String orderJson;
+    private String lastLinePointer;
+
+    @Setup
+    public void setUp() {
+        List<CartLine> cartLines = new ArrayList<>(lines);
+        List<OrderLine> orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            cartLines.add(new CartLine(1_000_000L + i, 10_000L + i, i % 10 + 1));
+            orderLines.add(new OrderLine(2_000_000L + i, 10_000L + i, i % 10 + 1));
+        }
+        cart = new Cart(10L, 1000L, cartLines);
+        order = new Order(20L, 1000L, orderLines);
+        cartJson = JsonUtils.toJson(cart);
+        orderJson = JsonUtils.toJson(order);
+        lastLinePointer = "/orderLines/" + (lines - 1) + "/productId";
+    }
+
+    @Benchmark
+    public String encodeCart() {
+        return JsonUtils.toJson(cart);
+    }
+
+    @Benchmark
+    public Cart decodeCart() {
+        return JsonUtils.fromJson(cartJson, Cart.class);
+    }
+
+    @Benchmark
+    public String encodeOrder() {
+        return JsonUtils.toJson(order);
+    }
+
+    @Benchmark
+    public Order decodeOrder() {
+        return JsonUtils.fromJson(orderJson, Order.class);
+    }
+
+    @Benchmark
+    public Long readFieldsFromTree() {
+        JsonNode tree = JsonUtils.fromJson(orderJson);
+        return tree.at("/id").asLong() + tree.at("/userId").asLong() + tree.at(lastLinePointer).asLong();
+    }
+
+    @Benchmark
+    public Long extractFields() {
+        Map<String, JsonNode> values = JsonUtils.extract(orderJson, List.of("/id", "/userId", lastLinePointer));
+        return values.get("/id").asLong() + values.get("/userId").asLong() + values.get(lastLinePointer).asLong();
+    }
+}
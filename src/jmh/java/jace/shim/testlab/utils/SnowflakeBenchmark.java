@@ -0,0 +1,45 @@
+package jace.shim.testlab.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeBenchmark {
+
+    @Param({"SYNCHRONIZED", "LOCK_FREE", "STRIPED"})
+    private String generator;
+
+    private IdGenerator sut;
+
+    @Setup
+    public void setUp() {
+        sut = switch (generator) {
+            case "STRIPED" -> new StripedSnowflake(1L, 8);
+            default -> new Snowflake(1L, Snowflake.DEFAULT_CUSTOM_EPOCH, Snowflake.Mode.valueOf(generator));
+        };
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextIdSingleThread() {
+        return sut.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long nextIdAllThreads() {
+        return sut.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(100)
+    public long[] nextIdsAllThreads() {
+        return sut.nextIds(100);
+    }
+}
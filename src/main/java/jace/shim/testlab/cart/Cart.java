@@ -1,23 +1,48 @@
 package jace.shim.testlab.cart;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 import org.springframework.util.Assert;
 
 @Entity(name = "cart")
+@Table(indexes = @Index(name = "idx_cart_user_id_id", columnList = "user_id, id"))
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Cart {
+public class Cart implements Persistable<Long> {
     @Id
     private Long id;
     private Long userId;
 
+    // Bumped with every change to the lines as well, so concurrent writers of one aggregate conflict on commit
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "cart_id", nullable = false, updatable = false)
     private List<CartLine> cartLines;
 
+    // Ids are assigned before persisting, so newness is tracked here instead of being inferred from the id
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    // productId -> position in cartLines, built on first use since Hibernate and Jackson fill cartLines directly.
+    // Dropped on load and whenever cartLines changes other than through the index, to be rebuilt on next use.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private Map<Long, Integer> positionsByProductId;
+
     public Cart(Long id, Long userId, List<CartLine> cartLines) {
         Assert.notNull(id, "id must not be null");
         Assert.notNull(userId, "userId must not be null");
@@ -34,15 +59,86 @@ public class Cart {
             throw new IllegalArgumentException("CartLine already exists - productId: " + cartLine.getProductId());
         }
         this.cartLines.add(cartLine);
+        positionsByProductId().put(cartLine.getProductId(), this.cartLines.size() - 1);
+    }
+
+    // Validates the whole batch before adding any line, so a rejected batch leaves the cart untouched
+    public void addCartLines(List<CartLine> cartLines) {
+        Assert.notEmpty(cartLines, "CartLines must not be empty");
+        Set<Long> productIds = new HashSet<>(cartLines.size() * 2);
+        for (CartLine cartLine : cartLines) {
+            Assert.notNull(cartLine, "CartLine must not be null");
+            if (checkProductIdExist(cartLine) || !productIds.add(cartLine.getProductId())) {
+                throw new IllegalArgumentException("CartLine already exists - productId: " + cartLine.getProductId());
+            }
+        }
+
+        Map<Long, Integer> positions = positionsByProductId();
+        for (CartLine cartLine : cartLines) {
+            this.cartLines.add(cartLine);
+            positions.put(cartLine.getProductId(), this.cartLines.size() - 1);
+        }
+    }
+
+    public Optional<CartLine> findCartLine(Long productId) {
+        Integer position = positionsByProductId().get(productId);
+        return position == null ? Optional.empty() : Optional.of(this.cartLines.get(position));
     }
 
     private boolean checkProductIdExist(CartLine cartLine) {
-        return this.cartLines.stream()
-                .anyMatch(cl -> cl.getProductId().equals(cartLine.getProductId()));
+        return positionsByProductId().containsKey(cartLine.getProductId());
     }
 
     public void removeCartLine(CartLine cartLine) {
         Assert.notNull(cartLine, "CartLine must not be null");
-        this.cartLines.remove(cartLine);
+        Integer position = positionsByProductId().get(cartLine.getProductId());
+        if (position == null || !this.cartLines.get(position).equals(cartLine)) {
+            // Not indexed under its productId, fall back to removing by id
+            if (this.cartLines.remove(cartLine)) {
+                this.positionsByProductId = null;
+            }
+            return;
+        }
+
+        // Move the last line into the freed slot so nothing has to shift
+        int lastPosition = this.cartLines.size() - 1;
+        CartLine last = this.cartLines.remove(lastPosition);
+        positionsByProductId.remove(cartLine.getProductId());
+        if (position != lastPosition) {
+            this.cartLines.set(position, last);
+            positionsByProductId.put(last.getProductId(), position);
+        }
+        if (positionsByProductId.size() != this.cartLines.size()) {
+            // Loaded with duplicate productIds, another line of the removed product may still be there
+            this.positionsByProductId = null;
+        }
+    }
+
+    private Map<Long, Integer> positionsByProductId() {
+        if (positionsByProductId == null) {
+            Map<Long, Integer> positions = new HashMap<>(Math.max(16, this.cartLines.size() * 2));
+            for (int i = 0; i < this.cartLines.size(); i++) {
+                positions.put(this.cartLines.get(i).getProductId(), i);
+            }
+            this.positionsByProductId = positions;
+        }
+        return positionsByProductId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    void afterLoad() {
+        markNotNew();
+        this.positionsByProductId = null;
+    }
+
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package jace.shim.testlab.cart;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+// Read-through cache of cart responses, bounded by size (W-TinyLFU) and TTL.
+// A cart being written is bypassed from the start of the write until its transaction completes, and is
+// invalidated on completion. Invalidation waits for an in-flight load of the same cart, so a load that read
+// the old row cannot outlive the write either.
+// With testlab.cart.cache.off-heap.enabled the carts are held in an OffHeapCartStore instead, bounded by bytes.
+@Component
+public class CartCache {
+    private final Cache<Long, CartResponse> carts;
+    private final OffHeapCartStore offHeapStore;
+    private final Map<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CartCache(@Value("${testlab.cart.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${testlab.cart.cache.ttl:PT5M}") Duration ttl,
+                     @Value("${testlab.cart.cache.off-heap.enabled:false}") boolean offHeapEnabled,
+                     @Value("${testlab.cart.cache.off-heap.size:256MB}") DataSize offHeapSize) {
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(offHeapEnabled ? 0 : maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.offHeapStore = offHeapEnabled ? new OffHeapCartStore(offHeapSize.toBytes(), ttl.toNanos()) : null;
+    }
+
+    public CartCache(long maximumSize, Duration ttl) {
+        this(maximumSize, ttl, false, null);
+    }
+
+    public CartResponse get(Long cartId, Function<Long, CartResponse> loader) {
+        if (offHeapStore != null) {
+            return switch (getOffHeap(cartId, loader)) {
+                case CartResponse cart -> cart;
+                case CartSnapshot snapshot -> snapshot.toResponse();
+            };
+        }
+        if (pendingWrites.containsKey(cartId)) {
+            return loader.apply(cartId);
+        }
+        return carts.get(cartId, loader);
+    }
+
+    // A cart served off-heap comes back as a CartSnapshot, which is written to the response without building the cart
+    public CartView getView(Long cartId, Function<Long, CartResponse> loader) {
+        return offHeapStore != null ? getOffHeap(cartId, loader) : get(cartId, loader);
+    }
+
+    // The invalidation stamp is read before the pending check: a write starting after the check invalidates, which
+    // makes the store reject the loaded cart
+    private CartView getOffHeap(Long cartId, Function<Long, CartResponse> loader) {
+        long invalidationStamp = offHeapStore.getInvalidationStamp(cartId);
+        if (pendingWrites.containsKey(cartId)) {
+            return loader.apply(cartId);
+        }
+        CartSnapshot snapshot = offHeapStore.get(cartId, () -> loader.apply(cartId));
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CartResponse cart = loader.apply(cartId);
+        offHeapStore.put(cart, invalidationStamp);
+        return cart;
+    }
+
+    // Call before writing the cart; without an active transaction the cart is invalidated right away
+    public void invalidateAfterCommit(Long cartId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(cartId);
+            return;
+        }
+
+        pendingWrites.merge(cartId, 1, Integer::sum);
+        invalidate(cartId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(cartId);
+                pendingWrites.computeIfPresent(cartId, (id, count) -> count == 1 ? null : count - 1);
+            }
+        });
+    }
+
+    private void invalidate(Long cartId) {
+        carts.invalidate(cartId);
+        if (offHeapStore != null) {
+            offHeapStore.invalidate(cartId);
+        }
+    }
+
+    void invalidateAll() {
+        carts.invalidateAll();
+        if (offHeapStore != null) {
+            offHeapStore.invalidateAll();
+        }
+    }
+
+    // Runs pending maintenance such as evictions, which Caffeine otherwise performs asynchronously
+    void cleanUp() {
+        carts.cleanUp();
+    }
+
+    public CacheStats getStats() {
+        return carts.stats();
+    }
+
+    public long getHitCount() {
+        return offHeapStore != null ? offHeapStore.getHitCount() : carts.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return offHeapStore != null ? offHeapStore.getMissCount() : carts.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return offHeapStore != null ? offHeapStore.getEvictionCount() : carts.stats().evictionCount();
+    }
+
+    public long getOffHeapUsedBytes() {
+        return offHeapStore != null ? offHeapStore.getUsedBytes() : 0;
+    }
+}
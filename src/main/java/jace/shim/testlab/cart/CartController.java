@@ -1,5 +1,9 @@
 package jace.shim.testlab.cart;
 
+import jace.shim.testlab.common.CursorPage;
+import jace.shim.testlab.utils.DateUtils;
+import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -8,10 +12,28 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class CartController {
     private final CartService cartService;
+    // Present when testlab.cart.write-behind.enabled is set, line adds then go through the mutation log
+    private final Optional<CartWriteBehind> cartWriteBehind;
 
     @GetMapping("/carts/{cartId}")
-    public Cart getCart(@PathVariable Long cartId) {
-        return cartService.getCart(cartId);
+    public CartView getCart(@PathVariable Long cartId) {
+        return cartWriteBehind.map(writeBehind -> writeBehind.getCartView(cartId))
+                .orElseGet(() -> cartService.getCartView(cartId));
+    }
+
+    // The listings exclude each other's parameters, so userId together with from or to is rejected with 400
+    @GetMapping(value = "/carts", params = {"from", "to", "!userId"})
+    public CursorPage<Cart> getCartsCreatedBetween(@RequestParam String from, @RequestParam String to,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(defaultValue = "100") int size) {
+        return cartService.getCartsCreatedBetween(DateUtils.of(from), DateUtils.of(to), after, size);
+    }
+
+    @GetMapping(value = "/carts", params = {"userId", "!from", "!to"})
+    public CursorPage<CartSummary> getCartsOfUser(@RequestParam Long userId,
+                                                  @RequestParam(required = false) Long after,
+                                                  @RequestParam(defaultValue = "100") int size) {
+        return cartService.getCartSummaries(userId, after, size);
     }
 
     @PostMapping("/carts")
@@ -22,7 +44,14 @@ public class CartController {
 
     @PostMapping("/carts/{cartId}/cart-lines")
     public Cart addCartLine(@PathVariable Long cartId, @RequestBody CartLineParam cartLine) {
-        return cartService.addCartLine(cartId, cartLine);
+        return cartWriteBehind.map(writeBehind -> writeBehind.addCartLine(cartId, cartLine))
+                .orElseGet(() -> cartService.addCartLine(cartId, cartLine));
+    }
+
+    @PostMapping("/carts/{cartId}/cart-lines/batch")
+    public Cart addCartLines(@PathVariable Long cartId, @RequestBody List<CartLineParam> cartLines) {
+        return cartWriteBehind.map(writeBehind -> writeBehind.addCartLines(cartId, cartLines))
+                .orElseGet(() -> cartService.addCartLines(cartId, cartLines));
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
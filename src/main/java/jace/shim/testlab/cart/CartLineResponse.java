@@ -0,0 +1,4 @@
+package jace.shim.testlab.cart;
+
+public record CartLineResponse(Long id, Long productId, int quantity) {
+}
@@ -0,0 +1,9 @@
+package jace.shim.testlab.cart;
+
+// One acknowledged cart line add, in the order it was appended to the CartMutationLog
+public record CartMutation(long sequence, long cartId, long cartLineId, long productId, int quantity) {
+
+    public CartLine toCartLine() {
+        return new CartLine(cartLineId, productId, quantity);
+    }
+}
@@ -0,0 +1,204 @@
+package jace.shim.testlab.cart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only, memory-mapped log of cart mutations not yet written to the database.
+// Layout: the last committed sequence (8 bytes) and the slot of the oldest uncommitted record (4 bytes), then a ring
+// of fixed-size records of sequence, cartId, cartLineId, productId (8 bytes each), quantity, the number of records
+// after it in the same append and a CRC32 of the preceding fields (4 bytes each). A checkpoint frees every slot before
+// the oldest uncommitted record, so the log only fills up when the uncommitted records themselves do not fit.
+// Appends land in the page cache, so they survive a crash of the process; forceOnAppend also syncs them to disk.
+// Recovery follows consecutive sequences from the oldest uncommitted slot; the record past the newest one is left
+// from an earlier lap and has a lower sequence, which ends the scan. An append the scan does not reach the last
+// record of was interrupted before it was acknowledged, and is dropped as a whole.
+public class CartMutationLog implements Closeable {
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 44;
+    private static final int CHECKSUMMED_SIZE = RECORD_SIZE - 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int slots;
+    private final boolean forceOnAppend;
+    private final ArrayDeque<CartMutation> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private int firstPendingSlot;
+    private long committedSequence;
+    private long lastSequence;
+
+    public CartMutationLog(Path path, int capacity, boolean forceOnAppend) {
+        if (capacity < HEADER_SIZE + RECORD_SIZE) {
+            throw new IllegalArgumentException("capacity must hold at least one record - capacity: " + capacity);
+        }
+        this.capacity = capacity - (capacity - HEADER_SIZE) % RECORD_SIZE;
+        this.slots = (this.capacity - HEADER_SIZE) / RECORD_SIZE;
+        this.forceOnAppend = forceOnAppend;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() > this.capacity) {
+                throw new IllegalArgumentException("Cart mutation log is larger than its capacity - path: " + path
+                        + ", size: " + channel.size() + ", capacity: " + this.capacity);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the cart mutation log - path: " + path, e);
+        }
+        recover();
+    }
+
+    // The checkpoint writes the sequence before the slot, so a slot left behind by a crash in between points at
+    // records that are already committed; those are skipped by their sequence.
+    // The sequences of a dropped append are issued again, to records written over it from its first slot on.
+    private void recover() {
+        committedSequence = buffer.getLong(0);
+        lastSequence = committedSequence;
+        int start = Math.floorMod(buffer.getInt(8), slots);
+        int firstPending = -1;
+        int appendSlot = -1;
+        List<CartMutation> append = new ArrayList<>();
+        long previous = -1;
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            int position = positionOf(slot);
+            long sequence = buffer.getLong(position);
+            if ((previous != -1 && sequence != previous + 1) || buffer.getInt(position + CHECKSUMMED_SIZE) != checksum(position)) {
+                break;
+            }
+            previous = sequence;
+            if (sequence <= committedSequence) {
+                continue;
+            }
+            if (append.isEmpty()) {
+                appendSlot = slot;
+            }
+            append.add(read(position));
+            if (buffer.getInt(position + 36) == 0) {
+                if (firstPending < 0) {
+                    firstPending = appendSlot;
+                }
+                pending.addAll(append);
+                append.clear();
+                lastSequence = sequence;
+            }
+        }
+        firstPendingSlot = firstPending >= 0 ? firstPending : appendSlot >= 0 ? appendSlot : start;
+    }
+
+    // Appends one record per line, all or none, also across a crash in the middle of it; returns the sequence of the
+    // last record, or -1 when the lines do not fit next to the uncommitted records
+    public synchronized long append(long cartId, List<CartLine> cartLines) {
+        if (pending.size() + cartLines.size() > slots) {
+            return -1;
+        }
+
+        int firstSlot = (firstPendingSlot + pending.size()) % slots;
+        for (int i = 0; i < cartLines.size(); i++) {
+            CartLine cartLine = cartLines.get(i);
+            CartMutation mutation = new CartMutation(lastSequence + 1, cartId, cartLine.getId(),
+                    cartLine.getProductId(), cartLine.getQuantity());
+            write(positionOf((firstPendingSlot + pending.size()) % slots), mutation, cartLines.size() - 1 - i);
+            pending.add(mutation);
+            lastSequence = mutation.sequence();
+        }
+        if (forceOnAppend) {
+            if (firstSlot + cartLines.size() <= slots) {
+                buffer.force(positionOf(firstSlot), cartLines.size() * RECORD_SIZE);
+            } else {
+                buffer.force();
+            }
+        }
+        return lastSequence;
+    }
+
+    // Oldest uncommitted mutations first, left in the log until checkpointed
+    public synchronized List<CartMutation> peek(int max) {
+        List<CartMutation> mutations = new ArrayList<>(Math.min(max, pending.size()));
+        for (CartMutation mutation : pending) {
+            if (mutations.size() == max) {
+                break;
+            }
+            mutations.add(mutation);
+        }
+        return mutations;
+    }
+
+    // Marks every mutation up to sequence as written to the database and frees their slots
+    public synchronized void checkpoint(long sequence) {
+        int freed = 0;
+        while (!pending.isEmpty() && pending.peekFirst().sequence() <= sequence) {
+            pending.pollFirst();
+            freed++;
+        }
+        firstPendingSlot = (firstPendingSlot + freed) % slots;
+        committedSequence = Math.max(committedSequence, sequence);
+        buffer.putLong(0, committedSequence);
+        buffer.putInt(8, firstPendingSlot);
+        if (forceOnAppend) {
+            buffer.force(0, HEADER_SIZE);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getCommittedSequence() {
+        return committedSequence;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static int positionOf(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void write(int position, CartMutation mutation, int remaining) {
+        buffer.putLong(position, mutation.sequence());
+        buffer.putLong(position + 8, mutation.cartId());
+        buffer.putLong(position + 16, mutation.cartLineId());
+        buffer.putLong(position + 24, mutation.productId());
+        buffer.putInt(position + 32, mutation.quantity());
+        buffer.putInt(position + 36, remaining);
+        buffer.putInt(position + CHECKSUMMED_SIZE, checksum(position));
+    }
+
+    private CartMutation read(int position) {
+        return new CartMutation(buffer.getLong(position), buffer.getLong(position + 8), buffer.getLong(position + 16),
+                buffer.getLong(position + 24), buffer.getInt(position + 32));
+    }
+
+    private int checksum(int position) {
+        crc.reset();
+        crc.update(buffer.slice(position, CHECKSUMMED_SIZE));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close the cart mutation log", e);
+        }
+    }
+}
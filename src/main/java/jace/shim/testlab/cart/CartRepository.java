@@ -1,6 +1,23 @@
 package jace.shim.testlab.cart;
 
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    // Primary key range scan: Snowflake ids are ordered by creation time
+    List<Cart> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long maxId, Limit limit);
+
+    // Read path: one indexed query straight into rows, no managed entities
+    @Query("select new jace.shim.testlab.cart.CartRow(c.id, c.userId, l.id, l.productId, l.quantity) "
+            + "from cart c left join c.cartLines l where c.id = :cartId order by l.id")
+    List<CartRow> findCartRows(@Param("cartId") Long cartId);
+
+    // Keyset page of a user's carts, a range scan of the (user_id, id) index
+    @Query("select new jace.shim.testlab.cart.CartSummary(c.id, c.userId, size(c.cartLines)) "
+            + "from cart c where c.userId = :userId and c.id > :afterId order by c.id")
+    List<CartSummary> findSummariesByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
 }
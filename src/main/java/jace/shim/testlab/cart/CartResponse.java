@@ -0,0 +1,28 @@
+package jace.shim.testlab.cart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Read model of a cart, same JSON shape as the Cart entity
+public record CartResponse(Long id, Long userId, List<CartLineResponse> cartLines) implements CartView {
+
+    public CartResponse {
+        cartLines = List.copyOf(cartLines);
+    }
+
+    // rows come from one cart left joined with its lines, a cart without lines yields a single row without a line
+    static Optional<CartResponse> of(List<CartRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<CartLineResponse> cartLines = new ArrayList<>(rows.size());
+        for (CartRow row : rows) {
+            if (row.cartLineId() != null) {
+                cartLines.add(new CartLineResponse(row.cartLineId(), row.productId(), row.quantity()));
+            }
+        }
+        CartRow first = rows.get(0);
+        return Optional.of(new CartResponse(first.cartId(), first.userId(), cartLines));
+    }
+}
@@ -0,0 +1,5 @@
+package jace.shim.testlab.cart;
+
+// Flat projection of a cart joined with one of its lines; line columns are null for a cart without lines
+public record CartRow(Long cartId, Long userId, Long cartLineId, Long productId, Integer quantity) {
+}
@@ -1,9 +1,18 @@
 package jace.shim.testlab.cart;
 
+import jace.shim.testlab.common.CursorPage;
 import jace.shim.testlab.utils.NumberIdGenerator;
 import jakarta.transaction.Transactional;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
 
 import static java.util.Collections.emptyList;
@@ -11,25 +20,109 @@ import static java.util.Collections.emptyList;
 @Service
 @RequiredArgsConstructor
 public class CartService {
+    static final int MAX_CART_LINES_PER_REQUEST = 1000;
+
     private final CartRepository cartRepository;
+    private final CartCache cartCache;
 
     public Cart getCart(Long cartId) {
         return findCart(cartId);
     }
 
+    public CartResponse getCartResponse(Long cartId) {
+        return cartCache.get(cartId, this::findCartResponse);
+    }
+
+    public CartView getCartView(Long cartId) {
+        return cartCache.getView(cartId, this::findCartResponse);
+    }
+
+    public CursorPage<Cart> getCartsCreatedBetween(ZonedDateTime from, ZonedDateTime to, Long after, int size) {
+        validateTimeRange(from, to);
+        CursorPage.validateSize(size);
+
+        long minId = NumberIdGenerator.minIdAt(from.toInstant());
+        long maxId = NumberIdGenerator.maxIdAt(to.toInstant());
+        long afterId = after == null ? minId - 1 : Math.max(after, minId - 1);
+
+        List<Cart> carts = cartRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(afterId, maxId, Limit.of(size + 1));
+        return CursorPage.of(carts, size, Cart::getId);
+    }
+
+    // Snowflake ids are positive, so no cursor starts before the first cart
+    public CursorPage<CartSummary> getCartSummaries(Long userId, Long after, int size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId must not be null");
+        }
+        CursorPage.validateSize(size);
+
+        List<CartSummary> carts = cartRepository.findSummariesByUserId(userId, after == null ? 0L : after, Limit.of(size + 1));
+        return CursorPage.of(carts, size, CartSummary::id);
+    }
+
     @Transactional
     public Cart createCart(Long userId) {
         Cart cart = new Cart(NumberIdGenerator.generate(), userId, emptyList());
+        cartCache.invalidateAfterCommit(cart.getId());
         return cartRepository.save(cart);
     }
 
+    // Re-applied from a fresh load when another writer committed the cart first
+    @Retryable(retryFor = ConcurrencyFailureException.class, listeners = "concurrencyRetryListener",
+            maxAttemptsExpression = "${testlab.retry.max-attempts:10}",
+            backoff = @Backoff(delayExpression = "${testlab.retry.delay-millis:5}",
+                    maxDelayExpression = "${testlab.retry.max-delay-millis:200}", multiplier = 2, random = true))
     @Transactional
     public Cart addCartLine(Long cartId, CartLineParam param) {
+        cartCache.invalidateAfterCommit(cartId);
         Cart cart = findCart(cartId);
         cart.addCartLine(param.toEntity(NumberIdGenerator.generate()));
         return cartRepository.save(cart);
     }
 
+    // The cart is managed inside the transaction, so the new lines are inserted on flush through the cascade
+    // (JDBC-batched) instead of a merge that would look each assigned id up first
+    @Retryable(retryFor = ConcurrencyFailureException.class, listeners = "concurrencyRetryListener",
+            maxAttemptsExpression = "${testlab.retry.max-attempts:10}",
+            backoff = @Backoff(delayExpression = "${testlab.retry.delay-millis:5}",
+                    maxDelayExpression = "${testlab.retry.max-delay-millis:200}", multiplier = 2, random = true))
+    @Transactional
+    public Cart addCartLines(Long cartId, List<CartLineParam> params) {
+        validateCartLinesSize(params);
+
+        cartCache.invalidateAfterCommit(cartId);
+        Cart cart = findCart(cartId);
+        long[] ids = NumberIdGenerator.generate(params.size());
+        List<CartLine> cartLines = new ArrayList<>(params.size());
+        for (int i = 0; i < params.size(); i++) {
+            Assert.notNull(params.get(i), "CartLine must not be null");
+            cartLines.add(params.get(i).toEntity(ids[i]));
+        }
+        cart.addCartLines(cartLines);
+        return cart;
+    }
+
+    static void validateCartLinesSize(List<CartLineParam> params) {
+        if (params == null || params.isEmpty() || params.size() > MAX_CART_LINES_PER_REQUEST) {
+            throw new IllegalArgumentException("cartLines size must be between 1 and " + MAX_CART_LINES_PER_REQUEST
+                    + " - size: " + (params == null ? 0 : params.size()));
+        }
+    }
+
+    private void validateTimeRange(ZonedDateTime from, ZonedDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to must not be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to - from: " + from + ", to: " + to);
+        }
+    }
+
+    private CartResponse findCartResponse(Long cartId) {
+        return CartResponse.of(cartRepository.findCartRows(cartId))
+                .orElseThrow(() -> new IllegalArgumentException("Cart not found - cartId: " + cartId));
+    }
+
     private Cart findCart(Long cartId) {
         return cartRepository.findById(cartId)
                 .orElseThrow(() -> new IllegalArgumentException("Cart not found - cartId: " + cartId));
@@ -0,0 +1,67 @@
+package jace.shim.testlab.cart;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+// A cart found in the OffHeapCartStore, serialized straight from the store's memory in the same JSON shape as
+// CartResponse, with no copy of it on the heap. The cart may leave the store, e.g. by an invalidation, before it is
+// written; it is then loaded again through fallback.
+public final class CartSnapshot implements CartView, JsonSerializable {
+    private final OffHeapCartStore store;
+    private final long id;
+    private final long userId;
+    private final Supplier<CartResponse> fallback;
+
+    CartSnapshot(OffHeapCartStore store, long id, long userId, Supplier<CartResponse> fallback) {
+        this.store = store;
+        this.id = id;
+        this.userId = userId;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Long id() {
+        return id;
+    }
+
+    @Override
+    public Long userId() {
+        return userId;
+    }
+
+    public CartResponse toResponse() {
+        CartResponse cart = store.read(id);
+        return cart != null ? cart : fallback.get();
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject(this);
+        writeFields(gen, serializers);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(this, JsonToken.START_OBJECT));
+        writeFields(gen, serializers);
+        typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+    private void writeFields(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (store.writeFields(id, gen)) {
+            return;
+        }
+        CartResponse cart = fallback.get();
+        gen.writeNumberField("id", cart.id());
+        gen.writeNumberField("userId", cart.userId());
+        serializers.defaultSerializeField("cartLines", cart.cartLines(), gen);
+    }
+}
@@ -0,0 +1,5 @@
+package jace.shim.testlab.cart;
+
+// A cart in a listing: its lines are only counted, never loaded
+public record CartSummary(Long id, Long userId, Integer lineCount) {
+}
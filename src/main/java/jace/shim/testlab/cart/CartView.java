@@ -0,0 +1,9 @@
+package jace.shim.testlab.cart;
+
+// What GET /carts/{cartId} returns: a CartResponse, or a CartSnapshot that writes itself from the off-heap cache
+public sealed interface CartView permits CartResponse, CartSnapshot {
+
+    Long id();
+
+    Long userId();
+}
@@ -0,0 +1,346 @@
+package jace.shim.testlab.cart;
+
+import jace.shim.testlab.utils.NumberIdGenerator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+// Write-behind mode of the cart line adds: a mutation is acknowledged once it is applied to the in-memory cart and
+// appended to the CartMutationLog, and a background committer writes the log to the database in batches.
+// A cart stays in memory, and is read from there, until every mutation of it is committed.
+// Locks are taken in the order flushLock, then a cart, then the log, so a checkout can flush while holding its cart.
+@Slf4j
+public class CartWriteBehind {
+    private static final int DROP_STRIPE_BITS = 10;
+
+    private final CartService cartService;
+    private final CartRepository cartRepository;
+    private final CartCache cartCache;
+    private final CartMutationLog mutationLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Map<Long, PendingCart> pendingCarts = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder conflicts = new LongAdder();
+    // Carts dropped from pendingCarts, counted per stripe of cartIds
+    private final AtomicLongArray drops = new AtomicLongArray(1 << DROP_STRIPE_BITS);
+
+    public CartWriteBehind(CartService cartService, CartRepository cartRepository, CartCache cartCache,
+                           CartMutationLog mutationLog, TransactionTemplate transactionTemplate, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive - batchSize: " + batchSize);
+        }
+        this.cartService = cartService;
+        this.cartRepository = cartRepository;
+        this.cartCache = cartCache;
+        this.mutationLog = mutationLog;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // Replays whatever a previous run acknowledged but did not commit, before any new mutation is accepted
+    public void recover() {
+        int pending = mutationLog.getPendingCount();
+        if (pending > 0) {
+            flushAll();
+            log.info("Replayed {} cart mutations from the mutation log", pending);
+        }
+    }
+
+    public Cart addCartLine(Long cartId, CartLineParam param) {
+        Assert.notNull(param, "CartLine must not be null");
+        return add(cartId, List.of(param));
+    }
+
+    public Cart addCartLines(Long cartId, List<CartLineParam> params) {
+        CartService.validateCartLinesSize(params);
+        return add(cartId, params);
+    }
+
+    public CartResponse getCartResponse(Long cartId) {
+        CartResponse pending = findPendingCartResponse(cartId);
+        return pending != null ? pending : cartService.getCartResponse(cartId);
+    }
+
+    public CartView getCartView(Long cartId) {
+        CartResponse pending = findPendingCartResponse(cartId);
+        return pending != null ? pending : cartService.getCartView(cartId);
+    }
+
+    private CartResponse findPendingCartResponse(Long cartId) {
+        PendingCart pendingCart = pendingCarts.get(cartId);
+        if (pendingCart != null) {
+            synchronized (pendingCart) {
+                if (!pendingCart.removed) {
+                    return toResponse(pendingCart.cart);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Cart add(Long cartId, List<CartLineParam> params) {
+        Cart added = tryAdd(cartId, params);
+        if (added == null) {
+            // The log is full: commit what it holds, outside any cart lock since the committer takes them too
+            flushAll();
+            added = tryAdd(cartId, params);
+        }
+        if (added == null) {
+            throw new IllegalStateException("Cart mutation log is full - capacity: " + mutationLog.getCapacity());
+        }
+        return added;
+    }
+
+    private Cart tryAdd(Long cartId, List<CartLineParam> params) {
+        while (true) {
+            PendingCart pendingCart = pendingCart(cartId);
+            synchronized (pendingCart) {
+                if (pendingCart.removed) {
+                    continue;
+                }
+
+                try {
+                    long[] ids = NumberIdGenerator.generate(params.size());
+                    List<CartLine> cartLines = new ArrayList<>(params.size());
+                    for (int i = 0; i < params.size(); i++) {
+                        Assert.notNull(params.get(i), "CartLine must not be null");
+                        cartLines.add(params.get(i).toEntity(ids[i]));
+                    }
+                    pendingCart.cart.addCartLines(cartLines);
+                    long sequence = mutationLog.append(cartId, cartLines);
+                    if (sequence < 0) {
+                        cartLines.forEach(pendingCart.cart::removeCartLine);
+                        return null;
+                    }
+                    pendingCart.lastSequence = sequence;
+                    return copyOf(pendingCart.cart);
+                } finally {
+                    // A cart loaded for a rejected mutation has nothing to wait for
+                    if (pendingCart.lastSequence == 0) {
+                        drop(cartId, pendingCart);
+                    }
+                }
+            }
+        }
+    }
+
+    // Loaded outside the map, so a slow load holds up no other cart. A cart of the same stripe dropped during the load
+    // may have changed in the database after the load read it, e.g. by a commit, so the load is started over then.
+    // The loaded cart is published under its own lock, so no mutation reaches it before it is known to be current.
+    private PendingCart pendingCart(Long cartId) {
+        while (true) {
+            PendingCart pendingCart = pendingCarts.get(cartId);
+            if (pendingCart != null) {
+                return pendingCart;
+            }
+
+            int stripe = dropStripe(cartId);
+            long dropped = drops.get(stripe);
+            PendingCart loaded = new PendingCart(copyOf(cartService.getCart(cartId)));
+            synchronized (loaded) {
+                pendingCart = pendingCarts.putIfAbsent(cartId, loaded);
+                if (pendingCart != null) {
+                    return pendingCart;
+                }
+                if (drops.get(stripe) == dropped) {
+                    return loaded;
+                }
+                loaded.removed = true;
+                pendingCarts.remove(cartId, loaded);
+            }
+        }
+    }
+
+    // Counted before the cart leaves the map, so a load that takes its place afterwards sees the count changed
+    private void drop(Long cartId, PendingCart pendingCart) {
+        pendingCart.removed = true;
+        drops.incrementAndGet(dropStripe(cartId));
+        pendingCarts.remove(cartId, pendingCart);
+    }
+
+    private static int dropStripe(long cartId) {
+        return (int) ((cartId * 0x9E3779B97F4A7C15L) >>> (64 - DROP_STRIPE_BITS));
+    }
+
+    // Runs action, e.g. an order checkout of the cart, once every acknowledged mutation of the cart is committed.
+    // Adds to the cart wait until it returns and then start over from the database, so none is applied to, or read
+    // back from, the lines the action has taken out of the cart.
+    public <T> T checkout(Long cartId, Function<Long, T> action) {
+        flushLock.lock();
+        try {
+            while (true) {
+                PendingCart pendingCart = pendingCart(cartId);
+                synchronized (pendingCart) {
+                    if (pendingCart.removed) {
+                        continue;
+                    }
+
+                    pendingCart.checkingOut = true;
+                    try {
+                        flushAll();
+                        return action.apply(cartId);
+                    } finally {
+                        drop(cartId, pendingCart);
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${testlab.cart.write-behind.flush-interval:PT0.05S}")
+    public void flushPending() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush cart mutations, retrying on the next run - pending: {}",
+                    mutationLog.getPendingCount(), e);
+        }
+    }
+
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            while (flush() == batchSize) {
+                // keep going while full batches are waiting
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes the oldest batch in one transaction. A mutation whose cartLineId is already in the database, from a run
+    // that crashed between commit and checkpoint, is skipped; one whose product already has another line is a conflict
+    int flush() {
+        flushLock.lock();
+        try {
+            List<CartMutation> batch = mutationLog.peek(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, List<CartMutation>> mutationsByCartId = new LinkedHashMap<>();
+            for (CartMutation mutation : batch) {
+                mutationsByCartId.computeIfAbsent(mutation.cartId(), id -> new ArrayList<>()).add(mutation);
+            }
+            transactionTemplate.executeWithoutResult(status -> apply(mutationsByCartId));
+            long committed = batch.get(batch.size() - 1).sequence();
+            mutationLog.checkpoint(committed);
+            mutationsByCartId.keySet().forEach(cartId -> release(cartId, committed));
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void apply(Map<Long, List<CartMutation>> mutationsByCartId) {
+        mutationsByCartId.keySet().forEach(cartCache::invalidateAfterCommit);
+        Map<Long, Cart> carts = new LinkedHashMap<>();
+        for (Cart cart : cartRepository.findAllById(mutationsByCartId.keySet())) {
+            carts.put(cart.getId(), cart);
+        }
+
+        mutationsByCartId.forEach((cartId, mutations) -> {
+            Cart cart = carts.get(cartId);
+            if (cart == null) {
+                log.warn("Dropped {} mutations of a cart that no longer exists - cartId: {}", mutations.size(), cartId);
+                return;
+            }
+            Set<Long> cartLineIds = new HashSet<>();
+            Map<Long, Long> cartLineIdsByProductId = new HashMap<>();
+            for (CartLine cartLine : cart.getCartLines()) {
+                cartLineIds.add(cartLine.getId());
+                cartLineIdsByProductId.put(cartLine.getProductId(), cartLine.getId());
+            }
+
+            List<CartLine> cartLines = new ArrayList<>(mutations.size());
+            for (CartMutation mutation : mutations) {
+                if (cartLineIds.contains(mutation.cartLineId())) {
+                    continue;
+                }
+                Long existing = cartLineIdsByProductId.putIfAbsent(mutation.productId(), mutation.cartLineId());
+                if (existing != null) {
+                    // The product reached the cart by another way after this add was acknowledged
+                    conflicts.increment();
+                    log.error("Acknowledged cart line conflicts with a line of the same product, not applied - "
+                                    + "cartId: {}, cartLineId: {}, productId: {}, quantity: {}, existingCartLineId: {}",
+                            cartId, mutation.cartLineId(), mutation.productId(), mutation.quantity(), existing);
+                    continue;
+                }
+                cartLines.add(mutation.toCartLine());
+            }
+            if (!cartLines.isEmpty()) {
+                cart.addCartLines(cartLines);
+            }
+        });
+    }
+
+    // A cart under checkout is dropped by the checkout itself, once its lines are gone from the database
+    private void release(Long cartId, long committed) {
+        PendingCart pendingCart = pendingCarts.get(cartId);
+        if (pendingCart == null) {
+            return;
+        }
+        synchronized (pendingCart) {
+            if (pendingCart.lastSequence <= committed && !pendingCart.checkingOut) {
+                drop(cartId, pendingCart);
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return mutationLog.getPendingCount();
+    }
+
+    // Acknowledged adds that could not be applied because their product already had another line in the cart
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    // Commits everything acknowledged so far on shutdown
+    public void close() {
+        try {
+            flushAll();
+        } finally {
+            mutationLog.close();
+        }
+    }
+
+    private static Cart copyOf(Cart cart) {
+        return new Cart(cart.getId(), cart.getUserId(), new ArrayList<>(cart.getCartLines()));
+    }
+
+    private static CartResponse toResponse(Cart cart) {
+        List<CartLineResponse> cartLines = new ArrayList<>(cart.getCartLines().size());
+        for (CartLine cartLine : cart.getCartLines()) {
+            cartLines.add(new CartLineResponse(cartLine.getId(), cartLine.getProductId(), cartLine.getQuantity()));
+        }
+        return new CartResponse(cart.getId(), cart.getUserId(), cartLines);
+    }
+
+    private static class PendingCart {
+        private final Cart cart;
+        private long lastSequence;
+        private boolean removed;
+        private boolean checkingOut;
+
+        private PendingCart(Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package jace.shim.testlab.cart;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Carts encoded in one direct buffer of a fixed budget, outside the heap the GC walks.
+// The buffer is split into segments, each with its own index and StampedLock; a cartId picks its segment by its stripe.
+// Reads share the lock of their segment, so they only wait for a write to the same segment, never for each other.
+// A segment is a ring: entries are appended at the head and reclaimed at the tail with a clock (second chance)
+// policy - a tail entry read since it was written is moved to the head with its bit cleared, otherwise evicted.
+// Invalidated and replaced entries are only marked dead and reclaimed when the tail reaches them.
+// Entry: length, flags (4 bytes each), expiry in System.nanoTime (8 bytes), then the cart, 8-byte aligned.
+// Cart: id, userId (8 bytes each), line count (4 bytes), then packed (lineId, productId, quantity) triples.
+public class OffHeapCartStore {
+    private static final int ENTRY_HEADER_SIZE = 16;
+    private static final int CART_HEADER_SIZE = 20;
+    private static final int LINE_SIZE = 20;
+    private static final int LIVE = 1;
+    private static final int REFERENCED = 2;
+    // Invalidations are counted per stripe of cartIds, so a write to one cart rejects the puts of its stripe only
+    private static final int STRIPE_BITS = 10;
+    // Up to 64 segments of at least 1MB, so a small budget still holds large carts
+    private static final int MAX_SEGMENT_BITS = 6;
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int capacity;
+    private final long ttlNanos;
+    // Each stripe falls in one segment, and its count is written under the write lock of that segment
+    private final long[] invalidationsByStripe = new long[1 << STRIPE_BITS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public OffHeapCartStore(long maximumBytes, long ttlNanos) {
+        if (maximumBytes < 1024 || maximumBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maximumBytes must be between 1KB and 2GB - maximumBytes: " + maximumBytes);
+        }
+        int segmentBits = Math.min(MAX_SEGMENT_BITS,
+                31 - Integer.numberOfLeadingZeros(Math.max(1, (int) (maximumBytes / MIN_SEGMENT_SIZE))));
+        int segmentSize = (int) (maximumBytes >> segmentBits) & ~7;
+        ByteBuffer arena = ByteBuffer.allocateDirect(segmentSize << segmentBits);
+        this.segments = new Segment[1 << segmentBits];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(arena.slice(i * segmentSize, segmentSize));
+        }
+        this.segmentShift = STRIPE_BITS - segmentBits;
+        this.capacity = segmentSize << segmentBits;
+        this.ttlNanos = ttlNanos;
+    }
+
+    // The returned snapshot reads the cart from the store when it is written, or from fallback once the cart is gone
+    public CartSnapshot get(long cartId, Supplier<CartResponse> fallback) {
+        Segment segment = segmentOf(cartId);
+        long stamp = segment.lock.readLock();
+        try {
+            int offset = segment.offsets.get(cartId);
+            if (offset < 0 || segment.arena.getLong(offset + 8) - System.nanoTime() < 0) {
+                misses.increment();
+                return null;
+            }
+
+            hits.increment();
+            // Readers only ever set the bit, the tail clears it under the write lock
+            segment.arena.putInt(offset + 4, LIVE | REFERENCED);
+            return new CartSnapshot(this, cartId, segment.arena.getLong(offset + ENTRY_HEADER_SIZE + 8), fallback);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    // Writes the fields of the cart in the order of CartResponse, straight from the arena; false if it is not stored.
+    // The read lock keeps the entry in place while it is written, holding up only writes to the same segment.
+    boolean writeFields(long cartId, JsonGenerator gen) throws IOException {
+        Segment segment = segmentOf(cartId);
+        long stamp = segment.lock.readLock();
+        try {
+            int offset = segment.offsets.get(cartId);
+            if (offset < 0) {
+                return false;
+            }
+
+            ByteBuffer arena = segment.arena;
+            int position = offset + ENTRY_HEADER_SIZE;
+            int lineCount = arena.getInt(position + 16);
+            gen.writeNumberField("id", arena.getLong(position));
+            gen.writeNumberField("userId", arena.getLong(position + 8));
+            gen.writeFieldName("cartLines");
+            gen.writeStartArray(null, lineCount);
+            for (int i = 0, line = position + CART_HEADER_SIZE; i < lineCount; i++, line += LINE_SIZE) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", arena.getLong(line));
+                gen.writeNumberField("productId", arena.getLong(line + 8));
+                gen.writeNumberField("quantity", arena.getInt(line + 16));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            return true;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    // Decodes the stored cart, or returns null if it is not stored
+    CartResponse read(long cartId) {
+        Segment segment = segmentOf(cartId);
+        long stamp = segment.lock.readLock();
+        try {
+            int offset = segment.offsets.get(cartId);
+            if (offset < 0) {
+                return null;
+            }
+
+            ByteBuffer arena = segment.arena;
+            int position = offset + ENTRY_HEADER_SIZE;
+            int lineCount = arena.getInt(position + 16);
+            List<CartLineResponse> cartLines = new ArrayList<>(lineCount);
+            for (int i = 0, line = position + CART_HEADER_SIZE; i < lineCount; i++, line += LINE_SIZE) {
+                cartLines.add(new CartLineResponse(arena.getLong(line), arena.getLong(line + 8), arena.getInt(line + 16)));
+            }
+            return new CartResponse(arena.getLong(position), arena.getLong(position + 8), cartLines);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    // Stores the cart unless it may have been invalidated after invalidationStamp was read, as the cart may predate it.
+    // Carts larger than a quarter of a segment are not stored.
+    public boolean put(CartResponse cart, long invalidationStamp) {
+        Segment segment = segmentOf(cart.id());
+        long stamp = segment.lock.writeLock();
+        try {
+            if (invalidationStamp != invalidationStamp(segment, cart.id())) {
+                return false;
+            }
+            List<CartLineResponse> cartLines = cart.cartLines();
+            long size = align((long) ENTRY_HEADER_SIZE + CART_HEADER_SIZE + (long) cartLines.size() * LINE_SIZE);
+            segment.remove(cart.id());
+            if (size > segment.capacity / 4) {
+                return false;
+            }
+
+            ByteBuffer arena = segment.arena;
+            int offset = segment.allocate((int) size);
+            arena.putInt(offset, (int) size);
+            arena.putInt(offset + 4, LIVE);
+            arena.putLong(offset + 8, System.nanoTime() + ttlNanos);
+            int position = offset + ENTRY_HEADER_SIZE;
+            arena.putLong(position, cart.id());
+            arena.putLong(position + 8, cart.userId());
+            arena.putInt(position + 16, cartLines.size());
+            position += CART_HEADER_SIZE;
+            for (CartLineResponse cartLine : cartLines) {
+                arena.putLong(position, cartLine.id());
+                arena.putLong(position + 8, cartLine.productId());
+                arena.putInt(position + 16, cartLine.quantity());
+                position += LINE_SIZE;
+            }
+            segment.offsets.put(cart.id(), offset);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void invalidate(long cartId) {
+        invalidations.increment();
+        Segment segment = segmentOf(cartId);
+        long stamp = segment.lock.writeLock();
+        try {
+            invalidationsByStripe[stripe(cartId)]++;
+            segment.remove(cartId);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.increment();
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.clears++;
+                segment.offsets.clear();
+                segment.head = 0;
+                segment.tail = 0;
+                segment.used = 0;
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // Read before loading a cart and passed to put; both counts only grow, so their sum changes with either
+    public long getInvalidationStamp(long cartId) {
+        Segment segment = segmentOf(cartId);
+        long stamp = segment.lock.tryOptimisticRead();
+        long invalidationStamp = invalidationStamp(segment, cartId);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                invalidationStamp = invalidationStamp(segment, cartId);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return invalidationStamp;
+    }
+
+    private long invalidationStamp(Segment segment, long cartId) {
+        return invalidationsByStripe[stripe(cartId)] + segment.clears;
+    }
+
+    private Segment segmentOf(long cartId) {
+        return segments[stripe(cartId) >>> segmentShift];
+    }
+
+    // Fibonacci hashing, as the low bits of Snowflake ids are mostly the sequence of the millisecond
+    private static int stripe(long cartId) {
+        return (int) ((cartId * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS));
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public long getSize() {
+        return sum(segment -> segment.offsets.size());
+    }
+
+    public long getUsedBytes() {
+        return sum(segment -> segment.used);
+    }
+
+    private long sum(ToLongFunction<Segment> value) {
+        long sum = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                sum += value.applyAsLong(segment);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return sum;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // One ring of the arena; every field is guarded by lock
+    private final class Segment {
+        private final ByteBuffer arena;
+        private final int capacity;
+        private final LongIntMap offsets = new LongIntMap();
+        private final StampedLock lock = new StampedLock();
+
+        private int head;
+        private int tail;
+        private int used;
+        private long clears;
+
+        private Segment(ByteBuffer arena) {
+            this.arena = arena;
+            this.capacity = arena.capacity();
+        }
+
+        private void remove(long cartId) {
+            int offset = offsets.get(cartId);
+            if (offset >= 0) {
+                arena.putInt(offset + 4, 0);
+                offsets.remove(cartId);
+            }
+        }
+
+        // Returns the offset of size contiguous free bytes at the head, reclaiming entries at the tail until they fit
+        private int allocate(int size) {
+            while (true) {
+                if (used == 0) {
+                    head = 0;
+                    tail = 0;
+                }
+                boolean wrapped = used > 0 && head <= tail;
+                if (!wrapped) {
+                    if (capacity - head >= size) {
+                        return take(size);
+                    }
+                    // No room before the end: fill it with a dead entry and continue from the start
+                    if (capacity - head > 0) {
+                        arena.putInt(head, capacity - head);
+                        arena.putInt(head + 4, 0);
+                        used += capacity - head;
+                    }
+                    head = 0;
+                } else if (tail - head >= size) {
+                    return take(size);
+                } else {
+                    reclaimTail();
+                }
+            }
+        }
+
+        private int take(int size) {
+            int offset = head;
+            head += size;
+            used += size;
+            return offset;
+        }
+
+        private void reclaimTail() {
+            int offset = tail;
+            int length = arena.getInt(offset);
+            int flags = arena.getInt(offset + 4);
+            tail = offset + length == capacity ? 0 : offset + length;
+            used -= length;
+            if ((flags & LIVE) == 0) {
+                return;
+            }
+
+            long cartId = arena.getLong(offset + ENTRY_HEADER_SIZE);
+            if ((flags & REFERENCED) == 0 || arena.getLong(offset + 8) - System.nanoTime() < 0) {
+                offsets.remove(cartId);
+                evictions.increment();
+                return;
+            }
+            // Second chance: the freed bytes border the free space at the head, so the entry always fits there
+            if (used == 0) {
+                head = 0;
+                tail = 0;
+            }
+            int target = take(length);
+            if (target != offset) {
+                byte[] entry = new byte[length];
+                arena.get(offset, entry);
+                arena.put(target, entry);
+            }
+            arena.putInt(target + 4, LIVE);
+            offsets.put(cartId, target);
+        }
+    }
+
+    // Open-addressing cartId -> offset map, so the index does not hold a boxed key and value per cart either
+    private static final class LongIntMap {
+        private long[] keys = new long[1024];
+        private int[] values = filled(1024);
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); values[i] >= 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (values[i] >= 0) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size > keys.length * 3 / 4) {
+                resize();
+            }
+        }
+
+        // Backward-shift deletion keeps every probe chain unbroken without tombstones
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (values[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] < 0) {
+                return;
+            }
+            size--;
+            int hole = i;
+            for (int j = (hole + 1) & mask; values[j] >= 0; j = (j + 1) & mask) {
+                int home = index(keys[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            values[hole] = -1;
+        }
+
+        void clear() {
+            Arrays.fill(values, -1);
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = filled(oldKeys.length * 2);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private static int[] filled(int length) {
+            int[] values = new int[length];
+            Arrays.fill(values, -1);
+            return values;
+        }
+    }
+}
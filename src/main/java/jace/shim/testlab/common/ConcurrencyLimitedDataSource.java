@@ -0,0 +1,147 @@
+package jace.shim.testlab.common;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Caps the connections checked out at once, so that with virtual threads the excess requests park cheaply on a
+// fair semaphore - failing after acquireTimeout - instead of piling up inside the pool.
+// Re-entrant per thread: a thread already holding a connection opens further ones without another permit.
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+    private final int maxPermits;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final ThreadLocal<int[]> openConnections = ThreadLocal.withInitial(() -> new int[1]);
+    private final LongAdder timeouts = new LongAdder();
+
+    public ConcurrencyLimitedDataSource(DataSource targetDataSource, int maxPermits, Duration acquireTimeout) {
+        super(targetDataSource);
+        if (maxPermits <= 0) {
+            throw new IllegalArgumentException("maxPermits must be positive - maxPermits: " + maxPermits);
+        }
+        this.maxPermits = maxPermits;
+        this.permits = new Semaphore(maxPermits, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return limit(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return limit(() -> super.getConnection(username, password));
+    }
+
+    private Connection limit(ConnectionSupplier supplier) throws SQLException {
+        int[] open = openConnections.get();
+        boolean permitted = open[0] == 0;
+        if (permitted) {
+            acquire();
+        }
+
+        try {
+            Connection connection = supplier.get();
+            open[0]++;
+            return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                    new Class<?>[]{ConnectionProxy.class}, new PermitReleasingHandler(connection, open, permitted));
+        } catch (SQLException | RuntimeException e) {
+            if (permitted) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "Timed out waiting for a database permit - timeout: " + acquireTimeout + ", permits: " + maxPermits);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getActiveCount() {
+        return maxPermits - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private final class PermitReleasingHandler implements InvocationHandler {
+        private final Connection target;
+        private final int[] open;
+        private final boolean permitted;
+        private boolean closed;
+
+        private PermitReleasingHandler(Connection target, int[] open, boolean permitted) {
+            this.target = target;
+            this.open = open;
+            this.permitted = permitted;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "isClosed":
+                    return closed || target.isClosed();
+                case "close":
+                    if (closed) {
+                        return null;
+                    }
+                    closed = true;
+                    try {
+                        target.close();
+                    } finally {
+                        open[0]--;
+                        if (permitted) {
+                            permits.release();
+                        }
+                    }
+                    return null;
+                default:
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jace.shim.testlab.common;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+// Counts conflicts of retried commands (optimistic version conflicts, lock failures): every conflict,
+// commands that succeeded after retrying, and commands that gave up once the attempts were used up
+@Slf4j
+public class ConcurrencyRetryListener implements RetryListener {
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (throwable instanceof ConcurrencyFailureException) {
+            conflicts.increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (throwable == null && context.getRetryCount() > 0) {
+            recovered.increment();
+        } else if (throwable instanceof ConcurrencyFailureException) {
+            exhausted.increment();
+            log.warn("Gave up after {} conflicting attempts - {}", context.getRetryCount(), throwable.getMessage());
+        }
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getRecoveredCount() {
+        return recovered.sum();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package jace.shim.testlab.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+// A keyset page: pass nextCursor back as the exclusive lower bound of the next request, null means last page
+public record CursorPage<T>(List<T> content, Long nextCursor) {
+
+    public static final int MAX_SIZE = 1000;
+
+    // fetched holds up to size + 1 rows, the extra row only tells whether another page exists
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, Long> cursorOf) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> content = fetched.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    public static void validateSize(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE + " - size: " + size);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package jace.shim.testlab.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jace.shim.testlab.utils.JsonUtils;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+// Writes the given response types as JSON with JsonUtils.writeJson, straight into the response body with its pooled
+// buffers. Write-only and limited to types without dates, so they come out the same as from the converter of Spring
+// Boot, which keeps serving every other type and all request bodies.
+public class JsonUtilsHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    private final List<Class<?>> types;
+
+    public JsonUtilsHttpMessageConverter(Class<?>... types) {
+        super(MediaType.APPLICATION_JSON);
+        this.types = List.of(types);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        for (Class<?> type : types) {
+            if (type.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading is not supported - type: " + clazz.getName(), inputMessage);
+    }
+
+    // Failures of the connection surface as IOExceptions, as from any other converter
+    @Override
+    protected void writeInternal(Object object, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            JsonUtils.writeJson(object, outputMessage.getBody());
+        } catch (JsonUtils.JsonEncodeException e) {
+            if (e.getCause() instanceof IOException cause && !(cause instanceof JsonProcessingException)) {
+                throw cause;
+            }
+            throw new HttpMessageNotWritableException("Could not write JSON - type: " + object.getClass().getName(),
+                    e.getCause());
+        }
+    }
+}
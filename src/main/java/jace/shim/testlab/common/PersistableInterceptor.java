@@ -0,0 +1,17 @@
+package jace.shim.testlab.common;
+
+import org.hibernate.Interceptor;
+import org.springframework.data.domain.Persistable;
+
+// Lets Hibernate ask the entity whether it is new. Without it, merging an aggregate with new children whose ids
+// are already assigned selects each child first to find out whether it exists.
+public class PersistableInterceptor implements Interceptor {
+
+    @Override
+    public Boolean isTransient(Object entity) {
+        if (entity instanceof Persistable<?> persistable) {
+            return persistable.isNew();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.cart.CartCache;
+import jace.shim.testlab.cart.CartMutationLog;
+import jace.shim.testlab.cart.CartRepository;
+import jace.shim.testlab.cart.CartService;
+import jace.shim.testlab.cart.CartWriteBehind;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+@ConditionalOnProperty(name = "testlab.cart.write-behind.enabled", havingValue = "true")
+public class CartWriteBehindConfiguration {
+
+    // Opening the log reads back its uncommitted records, recover() writes them before the application serves requests
+    @Bean(initMethod = "recover", destroyMethod = "close")
+    public CartWriteBehind cartWriteBehind(CartService cartService, CartRepository cartRepository, CartCache cartCache,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${testlab.cart.write-behind.log-path:data/cart-mutations.log}") Path logPath,
+                                           @Value("${testlab.cart.write-behind.log-size:16MB}") DataSize logSize,
+                                           @Value("${testlab.cart.write-behind.force-on-append:false}") boolean forceOnAppend,
+                                           @Value("${testlab.cart.write-behind.batch-size:500}") int batchSize) {
+        CartMutationLog mutationLog = new CartMutationLog(logPath, Math.toIntExact(logSize.toBytes()), forceOnAppend);
+        return new CartWriteBehind(cartService, cartRepository, cartCache, mutationLog,
+                new TransactionTemplate(transactionManager), batchSize);
+    }
+}
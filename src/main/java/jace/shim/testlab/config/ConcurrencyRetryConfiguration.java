@@ -0,0 +1,17 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.common.ConcurrencyRetryListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+// The retry advice is ordered before the transaction advice, so each attempt runs in a fresh transaction
+@Configuration
+@EnableRetry
+public class ConcurrencyRetryConfiguration {
+
+    @Bean
+    public ConcurrencyRetryListener concurrencyRetryListener() {
+        return new ConcurrencyRetryListener();
+    }
+}
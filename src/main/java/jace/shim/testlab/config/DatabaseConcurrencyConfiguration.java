@@ -0,0 +1,40 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.common.ConcurrencyLimitedDataSource;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "testlab.db.concurrency-limit.enabled", havingValue = "true")
+public class DatabaseConcurrencyConfiguration {
+
+    // Wraps the pool last, so any other DataSource decoration runs while the permit is held
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            @Value("${testlab.db.concurrency-limit.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${testlab.db.concurrency-limit.acquire-timeout:PT30S}") Duration acquireTimeout) {
+        return new ConcurrencyLimitingPostProcessor(permits, acquireTimeout);
+    }
+
+    private record ConcurrencyLimitingPostProcessor(int permits, Duration acquireTimeout) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                return new ConcurrencyLimitedDataSource(dataSource, permits, acquireTimeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.cart.CartView;
+import jace.shim.testlab.common.JsonUtilsHttpMessageConverter;
+import jace.shim.testlab.order.OrderResponse;
+import jace.shim.testlab.utils.JsonUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+@Configuration
+public class HttpMessageConverterConfiguration {
+
+    // Negotiated through Accept / Content-Type: application/cbor, sharing the JsonUtils date handling.
+    // Other than the read models below, JSON keeps the converter and mapper of Spring Boot, so it serializes as before.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(JsonUtils.getCborMapper());
+    }
+
+    // Ahead of the JSON converter of Spring Boot, for the cart and order read models returned by the controllers
+    @Bean
+    public JsonUtilsHttpMessageConverter readModelHttpMessageConverter() {
+        return new JsonUtilsHttpMessageConverter(CartView.class, OrderResponse.class);
+    }
+}
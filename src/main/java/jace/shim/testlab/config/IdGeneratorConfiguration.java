@@ -0,0 +1,54 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.node.NodeLeaseManager;
+import jace.shim.testlab.node.NodeLeaseRepository;
+import jace.shim.testlab.utils.IdGenerator;
+import jace.shim.testlab.utils.NumberIdGenerator;
+import jace.shim.testlab.utils.Snowflake;
+import jace.shim.testlab.utils.StripedSnowflake;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class IdGeneratorConfiguration {
+    private final int stripeCount;
+    private final long clockToleranceMillis;
+
+    public IdGeneratorConfiguration(@Value("${testlab.id.stripe-count:1}") int stripeCount,
+                                    @Value("${testlab.id.clock-tolerance-millis:0}") long clockToleranceMillis) {
+        this.stripeCount = stripeCount;
+        this.clockToleranceMillis = clockToleranceMillis;
+    }
+
+    // Leases the nodeId from the datasource and installs a generator for it whenever a lease is (re)claimed
+    @Bean(initMethod = "claim", destroyMethod = "release")
+    @ConditionalOnProperty(name = "testlab.id.node-lease.enabled", havingValue = "true", matchIfMissing = true)
+    public NodeLeaseManager nodeLeaseManager(NodeLeaseRepository nodeLeaseRepository,
+                                             @Value("${testlab.id.node-lease.ttl:PT30S}") Duration ttl) {
+        long nodeIdCount = StripedSnowflake.maxBaseNodeId(stripeCount) + 1;
+        return new NodeLeaseManager(nodeLeaseRepository, nodeIdCount, ttl, clockToleranceMillis,
+                this::createGenerator, NumberIdGenerator::setGenerator);
+    }
+
+    // Falls back to the nodeId derived from the MAC addresses of this host
+    @Bean
+    @ConditionalOnProperty(name = "testlab.id.node-lease.enabled", havingValue = "false")
+    public IdGenerator idGenerator() {
+        IdGenerator generator = stripeCount > 1
+                ? new StripedSnowflake(stripeCount, clockToleranceMillis)
+                : new Snowflake(Snowflake.Mode.LOCK_FREE, clockToleranceMillis);
+        NumberIdGenerator.setGenerator(generator);
+        return generator;
+    }
+
+    private IdGenerator createGenerator(long nodeId) {
+        return stripeCount > 1
+                ? new StripedSnowflake(nodeId, stripeCount, Snowflake.DEFAULT_CUSTOM_EPOCH, clockToleranceMillis)
+                : new Snowflake(nodeId, Snowflake.DEFAULT_CUSTOM_EPOCH, Snowflake.Mode.LOCK_FREE, clockToleranceMillis);
+    }
+}
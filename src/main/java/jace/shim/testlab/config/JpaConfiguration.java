@@ -0,0 +1,16 @@
+package jace.shim.testlab.config;
+
+import jace.shim.testlab.common.PersistableInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer persistableInterceptorCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new PersistableInterceptor());
+    }
+}
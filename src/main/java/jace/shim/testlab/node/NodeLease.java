@@ -0,0 +1,24 @@
+package jace.shim.testlab.node;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import java.time.Instant;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Entity(name = "node_lease")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class NodeLease {
+    @Id
+    private Long nodeId;
+    private String owner;
+    private Instant expiresAt;
+
+    public NodeLease(Long nodeId, String owner, Instant expiresAt) {
+        this.nodeId = nodeId;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,148 @@
+package jace.shim.testlab.node;
+
+import jace.shim.testlab.utils.IdGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Leases a Snowflake nodeId from the node_lease table, so instances sharing a datasource never share a nodeId.
+// The generator of a lease issues no id later than expiresAt - clockTolerance, so it stops by itself when heartbeats
+// fail, and is fenced as soon as the lease is lost or released.
+// Released leases keep their row with expiresAt = the last issued timestamp + clockTolerance: an instance whose clock
+// is behind cannot take the nodeId over before its clock has passed every timestamp the previous owner issued.
+@Slf4j
+public class NodeLeaseManager {
+    private final NodeLeaseRepository nodeLeaseRepository;
+    private final long nodeIdCount;
+    private final Duration ttl;
+    private final long clockToleranceMillis;
+    private final LongFunction<IdGenerator> generatorFactory;
+    private final Consumer<IdGenerator> onLeased;
+    private final Clock clock;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile Long nodeId;
+    private IdGenerator generator;
+    // nodeId and last issued epoch millis of the previous generator, carried over when the nodeId is claimed again
+    private Long fencedNodeId;
+    private long fencedAt;
+
+    public NodeLeaseManager(NodeLeaseRepository nodeLeaseRepository, long nodeIdCount, Duration ttl,
+                            long clockToleranceMillis, LongFunction<IdGenerator> generatorFactory,
+                            Consumer<IdGenerator> onLeased, Clock clock) {
+        if (nodeIdCount <= 0) {
+            throw new IllegalArgumentException("nodeIdCount must be positive");
+        }
+        if (clockToleranceMillis < 0 || clockToleranceMillis >= ttl.toMillis()) {
+            throw new IllegalArgumentException("clockToleranceMillis must be between 0 and the ttl - clockToleranceMillis: "
+                    + clockToleranceMillis + ", ttl: " + ttl);
+        }
+        this.nodeLeaseRepository = nodeLeaseRepository;
+        this.nodeIdCount = nodeIdCount;
+        this.ttl = ttl;
+        this.clockToleranceMillis = clockToleranceMillis;
+        this.generatorFactory = generatorFactory;
+        this.onLeased = onLeased;
+        this.clock = clock;
+    }
+
+    public NodeLeaseManager(NodeLeaseRepository nodeLeaseRepository, long nodeIdCount, Duration ttl,
+                            long clockToleranceMillis, LongFunction<IdGenerator> generatorFactory,
+                            Consumer<IdGenerator> onLeased) {
+        this(nodeLeaseRepository, nodeIdCount, ttl, clockToleranceMillis, generatorFactory, onLeased, Clock.systemUTC());
+    }
+
+    public synchronized long claim() {
+        Instant now = clock.instant();
+        Set<Long> held = nodeLeaseRepository.findAll().stream()
+                .filter(lease -> !lease.getExpiresAt().isBefore(now))
+                .map(NodeLease::getNodeId)
+                .collect(Collectors.toSet());
+
+        long start = ThreadLocalRandom.current().nextLong(nodeIdCount);
+        for (long i = 0; i < nodeIdCount; i++) {
+            long candidate = (start + i) % nodeIdCount;
+            if (!held.contains(candidate) && tryClaim(candidate, now)) {
+                IdGenerator leased = generatorFactory.apply(candidate);
+                if (Long.valueOf(candidate).equals(fencedNodeId)) {
+                    leased.resumeAfter(fencedAt);
+                }
+                leased.issueUntil(now.plus(ttl).toEpochMilli() - clockToleranceMillis);
+                this.generator = leased;
+                this.nodeId = candidate;
+                log.info("Leased nodeId {} until {} - owner: {}", candidate, now.plus(ttl), owner);
+                onLeased.accept(leased);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free nodeId left - nodeIdCount: " + nodeIdCount);
+    }
+
+    private boolean tryClaim(long candidate, Instant now) {
+        Instant expiresAt = now.plus(ttl);
+        if (nodeLeaseRepository.takeOverExpired(candidate, owner, expiresAt, now) == 1) {
+            return true;
+        }
+        if (nodeLeaseRepository.existsById(candidate)) {
+            return false;
+        }
+        try {
+            return nodeLeaseRepository.insert(candidate, owner, expiresAt) == 1;
+        } catch (DataIntegrityViolationException e) {
+            // another instance inserted the same nodeId first
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${testlab.id.node-lease.heartbeat:PT10S}")
+    public synchronized void renew() {
+        Long current = this.nodeId;
+        if (current == null) {
+            return;
+        }
+        Instant expiresAt = clock.instant().plus(ttl);
+        if (nodeLeaseRepository.renew(current, owner, expiresAt) == 0) {
+            log.warn("Lost the lease of nodeId {}, claiming a new one - owner: {}", current, owner);
+            fence(current);
+            claim();
+            return;
+        }
+        generator.issueUntil(expiresAt.toEpochMilli() - clockToleranceMillis);
+    }
+
+    // Fences the generator before the row is handed back, so no id is issued after the expiresAt it is given
+    public synchronized void release() {
+        Long current = this.nodeId;
+        if (current == null) {
+            return;
+        }
+        long lastIssuedAt = fence(current);
+        nodeLeaseRepository.renew(current, owner, Instant.ofEpochMilli(lastIssuedAt + clockToleranceMillis));
+        log.info("Released nodeId {} - owner: {}", current, owner);
+    }
+
+    private long fence(long current) {
+        fencedAt = generator.fence();
+        fencedNodeId = current;
+        generator = null;
+        nodeId = null;
+        return fencedAt;
+    }
+
+    public Long getNodeId() {
+        return nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
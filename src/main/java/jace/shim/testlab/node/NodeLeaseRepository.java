@@ -0,0 +1,29 @@
+package jace.shim.testlab.node;
+
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface NodeLeaseRepository extends JpaRepository<NodeLease, Long> {
+
+    // Fails with a constraint violation when another instance inserted the same nodeId first
+    @Transactional
+    @Modifying
+    @Query(value = "insert into node_lease (node_id, owner, expires_at) values (:nodeId, :owner, :expiresAt)",
+            nativeQuery = true)
+    int insert(@Param("nodeId") Long nodeId, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("update node_lease l set l.owner = :owner, l.expiresAt = :expiresAt where l.nodeId = :nodeId and l.expiresAt < :now")
+    int takeOverExpired(@Param("nodeId") Long nodeId, @Param("owner") String owner,
+                        @Param("expiresAt") Instant expiresAt, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update node_lease l set l.expiresAt = :expiresAt where l.nodeId = :nodeId and l.owner = :owner")
+    int renew(@Param("nodeId") Long nodeId, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+}
@@ -1,23 +1,36 @@
 package jace.shim.testlab.order;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.util.List;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 import org.springframework.util.Assert;
 
 @Entity(name = "orders")
+@Table(indexes = @Index(name = "idx_orders_user_id_id", columnList = "user_id, id"))
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Order {
+public class Order implements Persistable<Long> {
     @Id
     private Long id;
     private Long userId;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
     private List<OrderLine> orderLines;
 
+    // Set until the order is persisted or loaded; an assigned id alone cannot tell a new order from a stored one
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
     public Order(Long id, Long userId, List<OrderLine> orderLines) {
         Assert.notNull(id, "id must not be null");
         Assert.notNull(userId, "userId must not be null");
@@ -45,4 +58,16 @@ public class Order {
         Assert.notNull(orderLine, "OrderLine must not be null");
         this.orderLines.remove(orderLine);
     }
-}
\ No newline at end of file
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
@@ -1,17 +1,51 @@
 package jace.shim.testlab.order;
 
+import jace.shim.testlab.cart.CartWriteBehind;
+import jace.shim.testlab.common.CursorPage;
+import jace.shim.testlab.utils.DateUtils;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final Optional<CartWriteBehind> cartWriteBehind;
 
     @GetMapping("/orders/{orderId}")
-    public Order getCart(@PathVariable Long orderId) {
-        return orderService.getOrder(orderId);
+    public OrderResponse getCart(@PathVariable Long orderId) {
+        return orderService.getOrderResponse(orderId);
+    }
+
+    // A request mixing userId with from/to matches neither listing and gets 400 instead of an ambiguous mapping
+    @GetMapping(value = "/orders", params = {"from", "to", "!userId"})
+    public CursorPage<Order> getOrdersCreatedBetween(@RequestParam String from, @RequestParam String to,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "100") int size) {
+        return orderService.getOrdersCreatedBetween(DateUtils.of(from), DateUtils.of(to), after, size);
+    }
+
+    @GetMapping(value = "/orders", params = {"userId", "!from", "!to"})
+    public CursorPage<OrderSummary> getOrdersOfUser(@RequestParam Long userId,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam(defaultValue = "100") int size) {
+        return orderService.getOrderSummaries(userId, after, size);
+    }
+
+    // The filter is validated before the response starts, so a bad request still gets an error status
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) String from,
+                                                              @RequestParam(required = false) String to,
+                                                              @RequestParam(required = false) Long userId) {
+        OrderExportFilter filter = OrderExportFilter.of(from == null ? null : DateUtils.of(from),
+                to == null ? null : DateUtils.of(to), userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> orderService.exportOrders(filter, outputStream));
     }
 
     @PostMapping("/orders")
@@ -20,6 +54,13 @@ public class OrderController {
         return orderService.createCart(userId);
     }
 
+    // Line adds still waiting in the write-behind log are committed first, so the order contains them
+    @PostMapping(value = "/orders", params = "cartId")
+    public OrderResponse createOrderFromCart(@RequestParam Long cartId) {
+        return cartWriteBehind.map(writeBehind -> writeBehind.checkout(cartId, orderService::createFromCart))
+                .orElseGet(() -> orderService.createFromCart(cartId));
+    }
+
     @PostMapping("/orders/{orderId}/order-lines")
     public Order addCartLine(@PathVariable Long orderId, @RequestBody OrderLineParam orderLine) {
         return orderService.addOrderLine(orderId, orderLine);
@@ -0,0 +1,18 @@
+package jace.shim.testlab.order;
+
+import jace.shim.testlab.utils.NumberIdGenerator;
+import java.time.ZonedDateTime;
+
+// Which orders GET /orders/export streams: a creation time window as a Snowflake id range, and optionally one user
+public record OrderExportFilter(long minId, long maxId, Long userId) {
+
+    // Either bound may be left open
+    public static OrderExportFilter of(ZonedDateTime from, ZonedDateTime to, Long userId) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to - from: " + from + ", to: " + to);
+        }
+        long minId = from == null ? 0L : NumberIdGenerator.minIdAt(from.toInstant());
+        long maxId = to == null ? Long.MAX_VALUE : NumberIdGenerator.maxIdAt(to.toInstant());
+        return new OrderExportFilter(minId, maxId, userId);
+    }
+}
@@ -0,0 +1,108 @@
+package jace.shim.testlab.order;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+// Set-based statements over the cart and order tables, run on the connection of the surrounding JPA transaction.
+// Each one is a single round trip whatever the number of lines.
+@Repository
+public class OrderJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final int exportFetchSize;
+
+    public OrderJdbcRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${testlab.order.export.fetch-size:500}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    // Bumps the cart version, which also locks the row until commit: line adds, that bump it too, wait or fail
+    public boolean lockCart(Long cartId) {
+        return jdbcTemplate.update("update cart set version = version + 1 where id = ?", cartId) == 1;
+    }
+
+    public CheckoutCartRow findCheckoutCartRow(Long cartId) {
+        List<CheckoutCartRow> rows = jdbcTemplate.query(
+                "select c.user_id, count(l.id) from cart c left join cart_line l on l.cart_id = c.id "
+                        + "where c.id = ? group by c.user_id",
+                (rs, rowNum) -> new CheckoutCartRow(rs.getLong(1), rs.getInt(2)), cartId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void insertOrder(Long orderId, Long userId) {
+        jdbcTemplate.update("insert into orders (id, user_id, version) values (?, ?, 0)", orderId, userId);
+    }
+
+    // The n-th line of the cart by id gets the n-th of orderLineIds, which are ascending, so the order keeps the cart's order
+    public int copyCartLines(Long cartId, Long orderId, long[] orderLineIds) {
+        return jdbcTemplate.update(connection -> {
+            Long[] ids = new Long[orderLineIds.length];
+            for (int i = 0; i < orderLineIds.length; i++) {
+                ids[i] = orderLineIds[i];
+            }
+            Array idArray = connection.createArrayOf("BIGINT", ids);
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into order_line (id, order_id, product_id, quantity) "
+                            + "select n.id, ?, l.product_id, l.quantity "
+                            + "from (select product_id, quantity, row_number() over (order by id) as rn "
+                            + "from cart_line where cart_id = ?) l "
+                            + "join unnest(?) with ordinality as n(id, rn) on n.rn = l.rn");
+            statement.setLong(1, orderId);
+            statement.setLong(2, cartId);
+            statement.setArray(3, idArray);
+            return statement;
+        });
+    }
+
+    public int deleteCartLines(Long cartId) {
+        return jdbcTemplate.update("delete from cart_line where cart_id = ?", cartId);
+    }
+
+    // Reads the orders through a forward-only, read-only cursor that fetches exportFetchSize rows per round trip and
+    // hands each order over as soon as its last line is read, so only one order is held at a time.
+    // Drivers such as PostgreSQL only stream with a fetch size inside a transaction.
+    public void streamOrders(OrderExportFilter filter, Consumer<OrderResponse> consumer) {
+        String sql = "select o.id, o.user_id, l.id, l.product_id, l.quantity "
+                + "from orders o left join order_line l on l.order_id = o.id "
+                + "where o.id between ? and ?" + (filter.userId() == null ? "" : " and o.user_id = ?")
+                + " order by o.id, l.id";
+        List<OrderRow> rows = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            statement.setLong(1, filter.minId());
+            statement.setLong(2, filter.maxId());
+            if (filter.userId() != null) {
+                statement.setLong(3, filter.userId());
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            long orderId = rs.getLong(1);
+            if (!rows.isEmpty() && rows.get(0).orderId() != orderId) {
+                emit(rows, consumer);
+            }
+            rows.add(new OrderRow(orderId, rs.getLong(2), rs.getObject(3, Long.class), rs.getObject(4, Long.class),
+                    rs.getObject(5, Integer.class)));
+        });
+        if (!rows.isEmpty()) {
+            emit(rows, consumer);
+        }
+    }
+
+    private static void emit(List<OrderRow> rows, Consumer<OrderResponse> consumer) {
+        OrderResponse.of(rows).ifPresent(consumer);
+        rows.clear();
+    }
+
+    public record CheckoutCartRow(Long userId, int lineCount) {
+    }
+}
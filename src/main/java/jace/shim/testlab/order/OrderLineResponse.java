@@ -0,0 +1,4 @@
+package jace.shim.testlab.order;
+
+public record OrderLineResponse(Long id, Long productId, int quantity) {
+}
@@ -1,6 +1,23 @@
 package jace.shim.testlab.order;
 
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Primary key range scan: Snowflake ids are ordered by creation time
+    List<Order> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long maxId, Limit limit);
+
+    // Read path: one indexed query straight into rows, no managed entities
+    @Query("select new jace.shim.testlab.order.OrderRow(o.id, o.userId, l.id, l.productId, l.quantity) "
+            + "from orders o left join o.orderLines l where o.id = :orderId order by l.id")
+    List<OrderRow> findOrderRows(@Param("orderId") Long orderId);
+
+    // Keyset page of a user's orders, a range scan of the (user_id, id) index
+    @Query("select new jace.shim.testlab.order.OrderSummary(o.id, o.userId, size(o.orderLines)) "
+            + "from orders o where o.userId = :userId and o.id > :afterId order by o.id")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
 }
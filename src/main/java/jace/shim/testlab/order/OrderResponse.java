@@ -0,0 +1,28 @@
+package jace.shim.testlab.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Read model of an order, same JSON shape as the Order entity
+public record OrderResponse(Long id, Long userId, List<OrderLineResponse> orderLines) {
+
+    public OrderResponse {
+        orderLines = List.copyOf(orderLines);
+    }
+
+    // rows come from one order left joined with its lines, an order without lines yields a single row without a line
+    static Optional<OrderResponse> of(List<OrderRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<OrderLineResponse> orderLines = new ArrayList<>(rows.size());
+        for (OrderRow row : rows) {
+            if (row.orderLineId() != null) {
+                orderLines.add(new OrderLineResponse(row.orderLineId(), row.productId(), row.quantity()));
+            }
+        }
+        OrderRow first = rows.get(0);
+        return Optional.of(new OrderResponse(first.orderId(), first.userId(), orderLines));
+    }
+}
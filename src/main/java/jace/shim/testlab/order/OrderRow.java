@@ -0,0 +1,5 @@
+package jace.shim.testlab.order;
+
+// Flat projection of an order joined with one of its lines; line columns are null for an order without lines
+public record OrderRow(Long orderId, Long userId, Long orderLineId, Long productId, Integer quantity) {
+}
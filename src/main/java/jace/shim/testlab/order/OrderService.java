@@ -1,28 +1,109 @@
 package jace.shim.testlab.order;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jace.shim.testlab.cart.CartCache;
+import jace.shim.testlab.common.CursorPage;
+import jace.shim.testlab.order.OrderJdbcRepository.CheckoutCartRow;
+import jace.shim.testlab.utils.JsonUtils;
 import jace.shim.testlab.utils.NumberIdGenerator;
 import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
 
 import static java.util.Collections.emptyList;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    private static final ObjectWriter EXPORT_WRITER = JsonUtils.getMapper().writerFor(OrderResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
     private final OrderRepository orderRepository;
+    private final OrderJdbcRepository orderJdbcRepository;
+    private final CartCache cartCache;
 
     public Order getOrder(Long orderId) {
         return findOrder(orderId);
     }
 
+    public OrderResponse getOrderResponse(Long orderId) {
+        return OrderResponse.of(orderRepository.findOrderRows(orderId))
+                .orElseThrow(() -> new IllegalArgumentException("Order not found - orderId: " + orderId));
+    }
+
+    public CursorPage<Order> getOrdersCreatedBetween(ZonedDateTime from, ZonedDateTime to, Long after, int size) {
+        validateTimeRange(from, to);
+        CursorPage.validateSize(size);
+
+        long minId = NumberIdGenerator.minIdAt(from.toInstant());
+        long maxId = NumberIdGenerator.maxIdAt(to.toInstant());
+        long afterId = after == null ? minId - 1 : Math.max(after, minId - 1);
+
+        List<Order> orders = orderRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(afterId, maxId, Limit.of(size + 1));
+        return CursorPage.of(orders, size, Order::getId);
+    }
+
+    // Snowflake ids are positive, so no cursor starts before the first order
+    public CursorPage<OrderSummary> getOrderSummaries(Long userId, Long after, int size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId must not be null");
+        }
+        CursorPage.validateSize(size);
+
+        List<OrderSummary> orders = orderRepository.findSummariesByUserId(userId, after == null ? 0L : after, Limit.of(size + 1));
+        return CursorPage.of(orders, size, OrderSummary::id);
+    }
+
+    // Writes every matching order as one line of JSON while the rows are read, without loading entities.
+    // The generator and the response buffer flush as they fill up, not per order. A client that disconnects
+    // fails the next write, which ends the query and closes the cursor.
+    @Transactional
+    public long exportOrders(OrderExportFilter filter, OutputStream outputStream) throws IOException {
+        long[] exported = new long[1];
+        try (JsonGenerator generator = JsonUtils.getMapper().createGenerator(outputStream)) {
+            // Lines are separated by '\n' alone, not by the default " " between root values
+            generator.setRootValueSeparator(null);
+            orderJdbcRepository.streamOrders(filter, order -> {
+                try {
+                    EXPORT_WRITER.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.debug("Order export stopped after {} orders - {}", exported[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
     @Transactional
     public Order createCart(Long userId) {
         Order order = new Order(NumberIdGenerator.generate(), userId, emptyList());
         return orderRepository.save(order);
     }
 
+    @Retryable(retryFor = ConcurrencyFailureException.class, listeners = "concurrencyRetryListener",
+            maxAttemptsExpression = "${testlab.retry.max-attempts:10}",
+            backoff = @Backoff(delayExpression = "${testlab.retry.delay-millis:5}",
+                    maxDelayExpression = "${testlab.retry.max-delay-millis:200}", multiplier = 2, random = true))
     @Transactional
     public Order addOrderLine(Long orderId, OrderLineParam param) {
         Order order = findOrder(orderId);
@@ -30,6 +111,47 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    // Checkout in a constant number of statements whatever the size of the cart: the lines are copied into the new
+    // order and deleted from the cart by set-based SQL, neither aggregate is loaded into entities
+    @Retryable(retryFor = ConcurrencyFailureException.class, listeners = "concurrencyRetryListener",
+            maxAttemptsExpression = "${testlab.retry.max-attempts:10}",
+            backoff = @Backoff(delayExpression = "${testlab.retry.delay-millis:5}",
+                    maxDelayExpression = "${testlab.retry.max-delay-millis:200}", multiplier = 2, random = true))
+    @Transactional
+    public OrderResponse createFromCart(Long cartId) {
+        if (cartId == null) {
+            throw new IllegalArgumentException("Cart not found - cartId: " + cartId);
+        }
+        cartCache.invalidateAfterCommit(cartId);
+        if (!orderJdbcRepository.lockCart(cartId)) {
+            throw new IllegalArgumentException("Cart not found - cartId: " + cartId);
+        }
+        CheckoutCartRow cart = orderJdbcRepository.findCheckoutCartRow(cartId);
+        if (cart.lineCount() == 0) {
+            throw new IllegalArgumentException("Cart is empty - cartId: " + cartId);
+        }
+
+        long[] ids = NumberIdGenerator.generate(cart.lineCount() + 1);
+        Long orderId = ids[0];
+        orderJdbcRepository.insertOrder(orderId, cart.userId());
+        int copied = orderJdbcRepository.copyCartLines(cartId, orderId, Arrays.copyOfRange(ids, 1, ids.length));
+        if (copied != cart.lineCount()) {
+            throw new IllegalStateException("Cart lines changed during checkout - cartId: " + cartId
+                    + ", expected: " + cart.lineCount() + ", copied: " + copied);
+        }
+        orderJdbcRepository.deleteCartLines(cartId);
+        return getOrderResponse(orderId);
+    }
+
+    private void validateTimeRange(ZonedDateTime from, ZonedDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to must not be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to - from: " + from + ", to: " + to);
+        }
+    }
+
     private Order findOrder(Long orderId) {
         return orderRepository.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found - orderId: " + orderId));
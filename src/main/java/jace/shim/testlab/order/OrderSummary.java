@@ -0,0 +1,5 @@
+package jace.shim.testlab.order;
+
+// An order in a listing: its lines are only counted, never loaded
+public record OrderSummary(Long id, Long userId, Integer lineCount) {
+}
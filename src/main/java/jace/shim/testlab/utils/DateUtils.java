@@ -1,8 +1,11 @@
 package jace.shim.testlab.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.sql.Timestamp;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import org.springframework.util.StringUtils;
 
 public final class DateUtils {
@@ -14,38 +17,65 @@ public final class DateUtils {
     public static final String KST_DATE_FORMAT_YYYYMMDDHHMM = "yyyy-MM-dd HH:mm";
     public static final String DEFAULT_YEAR_MONTH_FORMAT = "yyyy-MM";
 
+    static final DateTimeFormatter DEFAULT_DATE_FORMATTER = DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT);
+    static final DateTimeFormatter DEFAULT_DAY_FORMATTER = DateTimeFormatter.ofPattern(DEFAULT_DAY_FORMAT);
+    static final DateTimeFormatter KST_DATE_FORMATTER = DateTimeFormatter.ofPattern(KST_DATE_FORMAT);
+    static final DateTimeFormatter DEFAULT_YEAR_MONTH_FORMATTER = DateTimeFormatter.ofPattern(DEFAULT_YEAR_MONTH_FORMAT);
+
+    static final int MAX_CACHED_PATTERNS = 64;
+
+    private static final Map<String, DateTimeFormatter> FORMATTERS = Map.of(
+        DEFAULT_DATE_FORMAT, DEFAULT_DATE_FORMATTER,
+        DEFAULT_DAY_FORMAT, DEFAULT_DAY_FORMATTER,
+        KST_DATE_FORMAT, KST_DATE_FORMATTER,
+        DEFAULT_YEAR_MONTH_FORMAT, DEFAULT_YEAR_MONTH_FORMATTER);
+
+    // Any other pattern a caller passes, e.g. one built from user input, is compiled once but cannot grow the cache
+    private static final Cache<String, DateTimeFormatter> OTHER_FORMATTERS = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_PATTERNS)
+            .executor(Runnable::run)
+            .build();
+
     private DateUtils() {
         throw new UnsupportedOperationException("Unable to create instance");
     }
 
     public static String parseDefaultDateFormat(ZonedDateTime dateTime) {
         if (dateTime == null) {return null;}
-        return dateTime.format(DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT));
+        char[] buffer = new char[FixedDateFormats.DEFAULT_DATE_MAX_LENGTH];
+        int end = FixedDateFormats.formatDefaultDate(dateTime, buffer, 0);
+        return end < 0 ? dateTime.format(DEFAULT_DATE_FORMATTER) : new String(buffer, 0, end);
     }
 
     public static String parseKstDateFormat(ZonedDateTime dateTime) {
         if (dateTime == null) {return null;}
-        return dateTime.format(DateTimeFormatter.ofPattern(KST_DATE_FORMAT));
+        char[] buffer = new char[FixedDateFormats.KST_DATE_LENGTH];
+        int end = FixedDateFormats.formatKstDate(dateTime.toLocalDateTime(), buffer, 0);
+        return end < 0 ? dateTime.format(KST_DATE_FORMATTER) : new String(buffer, 0, end);
     }
 
     public static String parseDefaultDayFormat(ZonedDateTime dateTime) {
         if (dateTime == null) {return null;}
-        return dateTime.format(DateTimeFormatter.ofPattern(DEFAULT_DAY_FORMAT));
+        return parseDefaultDateFormat(dateTime.toLocalDate());
     }
 
     public static String parseDateFormat(ZonedDateTime dateTime, String format) {
         if (dateTime == null) {return null;}
-        return dateTime.format(DateTimeFormatter.ofPattern(format));
+        return dateTime.format(formatterOf(format));
     }
 
     public static ZonedDateTime of(String datetime) {
         if (StringUtils.isEmpty(datetime)) {return null;}
-        return ZonedDateTime.parse(datetime, DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT));
+        ZonedDateTime parsed = FixedDateFormats.parseDefaultDate(datetime);
+        return parsed != null ? parsed : ZonedDateTime.parse(datetime, DEFAULT_DATE_FORMATTER);
     }
 
     public static ZonedDateTime of(String datetime, String pattern) {
         if (StringUtils.isEmpty(datetime)) {return null;}
-        LocalDateTime localdateTime = LocalDateTime.parse(datetime, DateTimeFormatter.ofPattern(pattern));
+        LocalDateTime localdateTime = KST_DATE_FORMAT.equals(pattern) ? FixedDateFormats.parseKstDate(datetime) : null;
+        if (localdateTime == null) {
+            localdateTime = LocalDateTime.parse(datetime, formatterOf(pattern));
+        }
         return ZonedDateTime.of(localdateTime, ZoneId.systemDefault());
     }
 
@@ -56,22 +86,40 @@ public final class DateUtils {
 
     public static ZonedDateTime parseDateAtStartOfDay(String date) {
         if (StringUtils.isEmpty(date)) {return null;}
-        return LocalDate.parse(date, DateTimeFormatter.ofPattern(DEFAULT_DAY_FORMAT)).atStartOfDay(ZoneOffset.systemDefault());
+        return parseDay(date).atStartOfDay(ZoneOffset.systemDefault());
     }
 
     public static ZonedDateTime parseDateAtEndOfDay(String date) {
         if (StringUtils.isEmpty(date)) {return null;}
-        return LocalDate.parse(date, DateTimeFormatter.ofPattern(DEFAULT_DAY_FORMAT))
+        return parseDay(date)
                         .atStartOfDay(ZoneOffset.systemDefault())
                         .with(LocalTime.MAX);
     }
 
     public static String parseDefaultYearMonthFormat(YearMonth yearMonth) {
-        return yearMonth.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_YEAR_MONTH_FORMAT));
+        return yearMonth.format(DEFAULT_YEAR_MONTH_FORMATTER);
     }
 
     public static String parseDefaultDateFormat(LocalDate localDate) {
         if (localDate == null) {return null;}
-        return localDate.format(DateTimeFormatter.ofPattern(DEFAULT_DAY_FORMAT));
+        char[] buffer = new char[FixedDateFormats.DAY_LENGTH];
+        int end = FixedDateFormats.formatDay(localDate, buffer, 0);
+        return end < 0 ? localDate.format(DEFAULT_DAY_FORMATTER) : new String(buffer, 0, end);
+    }
+
+    private static LocalDate parseDay(String date) {
+        LocalDate parsed = FixedDateFormats.parseDay(date);
+        return parsed != null ? parsed : LocalDate.parse(date, DEFAULT_DAY_FORMATTER);
+    }
+
+    static DateTimeFormatter formatterOf(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        return formatter != null ? formatter : OTHER_FORMATTERS.get(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    // Runs pending evictions first, so the size never reads above MAX_CACHED_PATTERNS
+    static long cachedPatternCount() {
+        OTHER_FORMATTERS.cleanUp();
+        return OTHER_FORMATTERS.estimatedSize();
     }
 }
\ No newline at end of file
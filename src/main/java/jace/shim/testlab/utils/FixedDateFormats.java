@@ -0,0 +1,193 @@
+package jace.shim.testlab.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.chrono.IsoChronology;
+
+// Hand-written codecs for the fixed DateUtils formats. Every method bails out (-1 / null) on anything
+// outside the plain case - years outside 1..9999, offsets with seconds, invalid fields - so callers can
+// fall back to java.time and keep its exact output and error behaviour.
+final class FixedDateFormats {
+    static final int DEFAULT_DATE_MAX_LENGTH = 25;
+    static final int KST_DATE_LENGTH = 19;
+    static final int DAY_LENGTH = 10;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[DEFAULT_DATE_MAX_LENGTH]);
+
+    private FixedDateFormats() {
+        throw new UnsupportedOperationException("Unable to create instance");
+    }
+
+    // yyyy-MM-dd'T'HH:mm:ssXXX
+    static int formatDefaultDate(ZonedDateTime dateTime, char[] buffer, int offset) {
+        int offsetSeconds = dateTime.getOffset().getTotalSeconds();
+        if (!isSupportedYear(dateTime.getYear()) || offsetSeconds % 60 != 0) {
+            return -1;
+        }
+        offset = writeDay(dateTime.toLocalDate(), buffer, offset);
+        buffer[offset++] = 'T';
+        offset = writeTime(dateTime.toLocalDateTime(), buffer, offset);
+        return writeOffset(offsetSeconds, buffer, offset);
+    }
+
+    // yyyy-MM-dd HH:mm:ss
+    static int formatKstDate(LocalDateTime dateTime, char[] buffer, int offset) {
+        if (!isSupportedYear(dateTime.getYear())) {
+            return -1;
+        }
+        offset = writeDay(dateTime.toLocalDate(), buffer, offset);
+        buffer[offset++] = ' ';
+        return writeTime(dateTime, buffer, offset);
+    }
+
+    // yyyy-MM-dd
+    static int formatDay(LocalDate date, char[] buffer, int offset) {
+        if (!isSupportedYear(date.getYear())) {
+            return -1;
+        }
+        return writeDay(date, buffer, offset);
+    }
+
+    static void writeKstDate(LocalDateTime dateTime, JsonGenerator generator) throws IOException {
+        char[] buffer = BUFFER.get();
+        int end = formatKstDate(dateTime, buffer, 0);
+        if (end < 0) {
+            generator.writeString(DateUtils.KST_DATE_FORMATTER.format(dateTime));
+            return;
+        }
+        generator.writeString(buffer, 0, end);
+    }
+
+    static ZonedDateTime parseDefaultDate(CharSequence text) {
+        int length = text.length();
+        if (length != DEFAULT_DATE_MAX_LENGTH && length != KST_DATE_LENGTH + 1) {
+            return null;
+        }
+        if (text.charAt(10) != 'T') {
+            return null;
+        }
+        LocalDateTime dateTime = parseDateTime(text);
+        if (dateTime == null) {
+            return null;
+        }
+        ZoneOffset zoneOffset = parseOffset(text, KST_DATE_LENGTH);
+        return zoneOffset == null ? null : ZonedDateTime.of(dateTime, zoneOffset);
+    }
+
+    static LocalDateTime parseKstDate(CharSequence text) {
+        if (text.length() != KST_DATE_LENGTH || text.charAt(10) != ' ') {
+            return null;
+        }
+        return parseDateTime(text);
+    }
+
+    static LocalDate parseDay(CharSequence text) {
+        if (text.length() != DAY_LENGTH) {
+            return null;
+        }
+        return parseDate(text);
+    }
+
+    private static LocalDate parseDate(CharSequence text) {
+        int year = parseDigits(text, 0, 4);
+        int month = parseDigits(text, 5, 2);
+        int day = parseDigits(text, 8, 2);
+        if (text.charAt(4) != '-' || text.charAt(7) != '-' || !isValidDate(year, month, day)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static LocalDateTime parseDateTime(CharSequence text) {
+        LocalDate date = parseDate(text);
+        int hour = parseDigits(text, 11, 2);
+        int minute = parseDigits(text, 14, 2);
+        int second = parseDigits(text, 17, 2);
+        if (date == null || text.charAt(13) != ':' || text.charAt(16) != ':'
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(date, LocalTime.of(hour, minute, second));
+    }
+
+    private static ZoneOffset parseOffset(CharSequence text, int from) {
+        char sign = text.charAt(from);
+        if (sign == 'Z') {
+            return text.length() == from + 1 ? ZoneOffset.UTC : null;
+        }
+        if ((sign != '+' && sign != '-') || text.length() != from + 6 || text.charAt(from + 3) != ':') {
+            return null;
+        }
+        int hours = parseDigits(text, from + 1, 2);
+        int minutes = parseDigits(text, from + 4, 2);
+        if (hours < 0 || hours > 17 || minutes < 0 || minutes > 59) {
+            return null;
+        }
+        int totalSeconds = hours * 3600 + minutes * 60;
+        return ZoneOffset.ofTotalSeconds(sign == '-' ? -totalSeconds : totalSeconds);
+    }
+
+    private static int parseDigits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        // Out-of-range days are left to java.time, which resolves them leniently in SMART mode
+        return isSupportedYear(year) && month >= 1 && month <= 12 && day >= 1
+            && day <= Month.of(month).length(IsoChronology.INSTANCE.isLeapYear(year));
+    }
+
+    private static boolean isSupportedYear(int year) {
+        return year >= 1 && year <= 9999;
+    }
+
+    private static int writeDay(LocalDate date, char[] buffer, int offset) {
+        offset = writeDigits(date.getYear(), 4, buffer, offset);
+        buffer[offset++] = '-';
+        offset = writeDigits(date.getMonthValue(), 2, buffer, offset);
+        buffer[offset++] = '-';
+        return writeDigits(date.getDayOfMonth(), 2, buffer, offset);
+    }
+
+    private static int writeTime(LocalDateTime dateTime, char[] buffer, int offset) {
+        offset = writeDigits(dateTime.getHour(), 2, buffer, offset);
+        buffer[offset++] = ':';
+        offset = writeDigits(dateTime.getMinute(), 2, buffer, offset);
+        buffer[offset++] = ':';
+        return writeDigits(dateTime.getSecond(), 2, buffer, offset);
+    }
+
+    private static int writeOffset(int offsetSeconds, char[] buffer, int offset) {
+        if (offsetSeconds == 0) {
+            buffer[offset++] = 'Z';
+            return offset;
+        }
+        int absoluteMinutes = Math.abs(offsetSeconds) / 60;
+        buffer[offset++] = offsetSeconds < 0 ? '-' : '+';
+        offset = writeDigits(absoluteMinutes / 60, 2, buffer, offset);
+        buffer[offset++] = ':';
+        return writeDigits(absoluteMinutes % 60, 2, buffer, offset);
+    }
+
+    private static int writeDigits(int value, int width, char[] buffer, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + width;
+    }
+}
@@ -0,0 +1,23 @@
+package jace.shim.testlab.utils;
+
+import java.time.Instant;
+
+public interface IdGenerator {
+
+    long nextId();
+
+    long[] nextIds(int count);
+
+    long minIdAt(Instant instant);
+
+    long maxIdAt(Instant instant);
+
+    // Stops issuing ids for good, later calls throw; returns the epoch millis of the last id issued
+    long fence();
+
+    // Refuses ids past epochMillis, e.g. the end of the lease of the nodeId
+    void issueUntil(long epochMillis);
+
+    // Issues only ids after epochMillis, e.g. when the nodeId was used by a generator fenced at that time
+    void resumeAfter(long epochMillis);
+}
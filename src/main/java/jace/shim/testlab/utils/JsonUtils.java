@@ -1,31 +1,81 @@
 package jace.shim.testlab.utils;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.type.CollectionLikeType;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.type.MapLikeType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class JsonUtils {
 
     private static final ObjectMapper MAPPER;
     private static final ObjectMapper IGNORE_NULL_MAPPER;
+    private static final ObjectMapper CBOR_MAPPER;
+    private static final ObjectMapper IGNORE_NULL_CBOR_MAPPER;
+
+    // Prebuilt readers and writers, so hot paths skip type resolution and root (de)serializer lookups
+    private static final int MAX_CACHED_TYPES = 512;
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+    private static final BoundedCache<Object, ObjectReader> READERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Class<?>, ObjectReader> LIST_READERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Class<?>, ObjectWriter> WRITERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Class<?>, ObjectWriter> IGNORE_NULL_WRITERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Object, ObjectReader> CBOR_READERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Class<?>, ObjectWriter> CBOR_WRITERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final BoundedCache<Class<?>, ObjectWriter> IGNORE_NULL_CBOR_WRITERS = new BoundedCache<>(MAX_CACHED_TYPES);
+    private static final ObjectWriter PRETTY_WRITER;
+
+    // Encoding buffers shared by every mapper instead of one set per thread, so request threads reuse them
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final RecyclerPool<BufferRecycler> BUFFER_POOL = JsonRecyclerPools.newBoundedPool(MAX_POOLED_BUFFERS);
 
     static {
-        MAPPER = new ObjectMapper();
+        MAPPER = new ObjectMapper(JsonFactory.builder().recyclerPool(BUFFER_POOL).build());
 
         JavaTimeModule javaTimeModule = new JavaTimeModule();
 
@@ -33,8 +83,7 @@ public final class JsonUtils {
             @Override
             public void serialize(LocalDateTime value, JsonGenerator jsonGenerator,
                                   SerializerProvider serializerProvider) throws IOException {
-                ZonedDateTime offsetDateTime = value.atZone(ZoneId.systemDefault());
-                jsonGenerator.writeString(convertDateToString(offsetDateTime));
+                FixedDateFormats.writeKstDate(value, jsonGenerator);
             }
         });
 
@@ -43,7 +92,7 @@ public final class JsonUtils {
             public void serialize(
                 ZonedDateTime zonedDateTime, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
                 throws IOException {
-                jsonGenerator.writeString(convertDateToString(zonedDateTime));
+                FixedDateFormats.writeKstDate(zonedDateTime.toLocalDateTime(), jsonGenerator);
             }
         });
 
@@ -55,19 +104,30 @@ public final class JsonUtils {
             }
         });
 
-        MAPPER.registerModule(javaTimeModule);
-        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        MAPPER.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        configure(MAPPER, javaTimeModule);
 
-        IGNORE_NULL_MAPPER = new ObjectMapper();
-        IGNORE_NULL_MAPPER.registerModule(javaTimeModule);
-        IGNORE_NULL_MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        IGNORE_NULL_MAPPER.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        IGNORE_NULL_MAPPER = new ObjectMapper(JsonFactory.builder().recyclerPool(BUFFER_POOL).build());
+        configure(IGNORE_NULL_MAPPER, javaTimeModule);
         IGNORE_NULL_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        // Binary CBOR encoding with the same customizations, for service-to-service payloads.
+        // CBOR request bodies bind constructor parameters by name, like JSON ones do with the mapper of Spring Boot.
+        CBOR_MAPPER = new CBORMapper(CBORFactory.builder().recyclerPool(BUFFER_POOL).build());
+        configure(CBOR_MAPPER, javaTimeModule);
+        CBOR_MAPPER.registerModule(new ParameterNamesModule());
+
+        IGNORE_NULL_CBOR_MAPPER = new CBORMapper(CBORFactory.builder().recyclerPool(BUFFER_POOL).build());
+        configure(IGNORE_NULL_CBOR_MAPPER, javaTimeModule);
+        IGNORE_NULL_CBOR_MAPPER.registerModule(new ParameterNamesModule());
+        IGNORE_NULL_CBOR_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
     }
 
-    private static String convertDateToString(ZonedDateTime dateTime) {
-        return DateUtils.parseKstDateFormat(dateTime);
+    private static void configure(ObjectMapper mapper, JavaTimeModule javaTimeModule) {
+        mapper.registerModule(javaTimeModule);
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
     private JsonUtils() {
@@ -82,13 +142,71 @@ public final class JsonUtils {
         return IGNORE_NULL_MAPPER;
     }
 
+    public static ObjectMapper getCborMapper() {
+        return CBOR_MAPPER;
+    }
+
+    public static ObjectMapper getIgnoreNullCborMapper() {
+        return IGNORE_NULL_CBOR_MAPPER;
+    }
+
+    public static long getCacheHitCount() {
+        return CACHE_HITS.sum();
+    }
+
+    public static long getCacheMissCount() {
+        return CACHE_MISSES.sum();
+    }
+
+    private static ObjectReader readerFor(Class<?> clazz) {
+        return READERS.get(clazz, type -> MAPPER.readerFor((Class<?>) type));
+    }
+
+    private static ObjectReader readerFor(TypeReference<?> typeReference) {
+        return READERS.get(typeReference.getType(), type -> MAPPER.readerFor(MAPPER.constructType((Type) type)));
+    }
+
+    private static ObjectReader readerFor(JavaType javaType) {
+        return READERS.get(javaType, type -> MAPPER.readerFor((JavaType) type));
+    }
+
+    private static ObjectReader cborReaderFor(Class<?> clazz) {
+        return CBOR_READERS.get(clazz, type -> CBOR_MAPPER.readerFor((Class<?>) type));
+    }
+
+    private static ObjectReader cborReaderFor(TypeReference<?> typeReference) {
+        return CBOR_READERS.get(typeReference.getType(), type -> CBOR_MAPPER.readerFor(CBOR_MAPPER.constructType((Type) type)));
+    }
+
+    private static ObjectWriter cborWriterFor(Object object, boolean useNullValueField) {
+        ObjectMapper mapper = useNullValueField ? CBOR_MAPPER : IGNORE_NULL_CBOR_MAPPER;
+        if (object == null) {
+            return mapper.writer();
+        }
+        BoundedCache<Class<?>, ObjectWriter> writers = useNullValueField ? CBOR_WRITERS : IGNORE_NULL_CBOR_WRITERS;
+        return writers.get(object.getClass(), mapper::writerFor);
+    }
+
+    private static ObjectReader listReaderFor(Class<?> clazz) {
+        return LIST_READERS.get(clazz, MAPPER::readerForListOf);
+    }
+
+    private static ObjectWriter writerFor(Object object, boolean useNullValueField) {
+        ObjectMapper mapper = useNullValueField ? MAPPER : IGNORE_NULL_MAPPER;
+        if (object == null) {
+            return mapper.writer();
+        }
+        BoundedCache<Class<?>, ObjectWriter> writers = useNullValueField ? WRITERS : IGNORE_NULL_WRITERS;
+        return writers.get(object.getClass(), mapper::writerFor);
+    }
+
     public static <T> T fromJson(InputStream inputStream, Class<T> clazz) {
         if (inputStream == null) {
             return null;
         }
 
         try {
-            return MAPPER.readValue(inputStream, clazz);
+            return readerFor(clazz).readValue(inputStream);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -100,7 +218,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(json, clazz);
+            return readerFor(clazz).readValue(json);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -112,7 +230,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(jsonNode.traverse(), clazz);
+            return readerFor(clazz).readValue(jsonNode);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -124,7 +242,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(inputStream, typeReference);
+            return readerFor(typeReference).readValue(inputStream);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -136,7 +254,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(json, typeReference);
+            return readerFor(typeReference).readValue(json);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -148,7 +266,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(jsonNode.traverse(), typeReference);
+            return readerFor(typeReference).readValue(jsonNode);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -160,7 +278,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(jsonNode.traverse(), collectionLikeType);
+            return readerFor(collectionLikeType).readValue(jsonNode);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -172,7 +290,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(jsonNode.traverse(), mapLikeType);
+            return readerFor(mapLikeType).readValue(jsonNode);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -184,7 +302,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(bytes, typeReference);
+            return readerFor(typeReference).readValue(bytes);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -200,7 +318,7 @@ public final class JsonUtils {
         }
 
         try {
-            return MAPPER.readValue(bytes, clazz);
+            return readerFor(clazz).readValue(bytes);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -230,15 +348,93 @@ public final class JsonUtils {
         }
     }
 
+    // Reads only the values at the given JSON Pointers in one streaming pass; subtrees off those paths are skipped
+    // without building nodes, and parsing stops once every pointer is found. Missing pointers are left out.
+    public static Map<String, JsonNode> extract(String json, Collection<String> pointers) {
+        if (json == null) {
+            return Collections.emptyMap();
+        }
+
+        try (JsonParser parser = MAPPER.createParser(json)) {
+            return extract(parser, pointers);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
+
+    public static Map<String, JsonNode> extract(InputStream inputStream, Collection<String> pointers) {
+        if (inputStream == null) {
+            return Collections.emptyMap();
+        }
+
+        try (JsonParser parser = MAPPER.createParser(inputStream)) {
+            return extract(parser, pointers);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
+
+    private static Map<String, JsonNode> extract(JsonParser parser, Collection<String> pointers) throws IOException {
+        Map<JsonPointer, String> targets = new HashMap<>();
+        Set<JsonPointer> ancestors = new HashSet<>();
+        for (String pointer : pointers) {
+            JsonPointer target = JsonPointer.compile(pointer);
+            targets.put(target, pointer);
+            for (JsonPointer head = target.head(); head != null; head = head.head()) {
+                ancestors.add(head);
+            }
+        }
+
+        Map<String, JsonNode> values = new HashMap<>();
+        JsonToken token;
+        while (values.size() < targets.size() && (token = parser.nextToken()) != null) {
+            if (token == JsonToken.FIELD_NAME || token.isStructEnd()) {
+                continue;
+            }
+
+            JsonPointer path = currentPath(parser, token);
+            String target = targets.get(path);
+            if (target != null) {
+                JsonNode value = parser.readValueAsTree();
+                values.putIfAbsent(target, value);
+                if (ancestors.contains(path)) {
+                    // Other pointers below this one were consumed with the subtree; resolve them from it
+                    extractDescendants(path, value, targets, values);
+                }
+            } else if (token.isStructStart() && !ancestors.contains(path)) {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static void extractDescendants(JsonPointer path, JsonNode value, Map<JsonPointer, String> targets,
+                                           Map<String, JsonNode> values) {
+        String prefix = path.toString();
+        for (Map.Entry<JsonPointer, String> target : targets.entrySet()) {
+            String pointer = target.getKey().toString();
+            if (pointer.length() > prefix.length() && pointer.startsWith(prefix) && pointer.charAt(prefix.length()) == '/') {
+                JsonNode descendant = value.at(pointer.substring(prefix.length()));
+                if (!descendant.isMissingNode()) {
+                    values.putIfAbsent(target.getValue(), descendant);
+                }
+            }
+        }
+    }
+
+    private static JsonPointer currentPath(JsonParser parser, JsonToken token) {
+        JsonStreamContext context = parser.getParsingContext();
+        // A container start has already entered its own context, so the value's path is the parent's position
+        return token.isStructStart() ? context.getParent().pathAsPointer() : context.pathAsPointer();
+    }
+
     public static <T> List<T> fromJsonArray(InputStream inputStream, Class<T> clazz) {
         if (inputStream == null) {
             return Collections.emptyList();
         }
 
-        CollectionType collectionType = TypeFactory.defaultInstance().constructCollectionType(List.class, clazz);
-
         try {
-            return MAPPER.readValue(inputStream, collectionType);
+            return listReaderFor(clazz).readValue(inputStream);
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
@@ -249,17 +445,110 @@ public final class JsonUtils {
             return Collections.emptyList();
         }
 
-        CollectionType collectionType = TypeFactory.defaultInstance().constructCollectionType(List.class, clazz);
+        try {
+            return listReaderFor(clazz).readValue(json);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
 
+    // Lazily decodes a JSON array one element at a time; close the stream to release the parser early.
+    // Fails with a JsonDecodeException when the root value is not an array.
+    public static <T> Stream<T> streamJsonArray(InputStream inputStream, Class<T> clazz) {
+        if (inputStream == null) {
+            return Stream.empty();
+        }
+
+        ObjectReader reader = readerFor(clazz);
+        JsonParser parser;
         try {
-            return MAPPER.readValue(json, collectionType);
+            parser = reader.createParser(inputStream);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                MismatchedInputException e = MismatchedInputException.from(parser, clazz,
+                        "Expected a JSON array but found " + parser.currentToken());
+                parser.close();
+                throw e;
+            }
         } catch (IOException e) {
             throw new JsonDecodeException(e);
         }
+
+        Iterator<T> iterator = new Iterator<>() {
+            // whether the parser already stands on the token after the last element read
+            private boolean advanced;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    if (!advanced) {
+                        if (parser.nextToken() == null) {
+                            throw MismatchedInputException.from(parser, clazz, "Unexpected end of input in a JSON array");
+                        }
+                        advanced = true;
+                    }
+                    return parser.currentToken() != JsonToken.END_ARRAY;
+                } catch (IOException e) {
+                    throw new JsonDecodeException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    T value = reader.readValue(parser);
+                    advanced = false;
+                    return value;
+                } catch (IOException e) {
+                    throw new JsonDecodeException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        parser.close();
+                    } catch (IOException e) {
+                        throw new JsonDecodeException(e);
+                    }
+                });
+    }
+
+    // Decodes a JSON array in batches of at most batchSize elements; batchHandler returns false to stop early.
+    // Returns the number of elements handed to batchHandler.
+    public static <T> long readJsonArrayInBatches(InputStream inputStream, Class<T> clazz, int batchSize,
+                                                  Predicate<List<T>> batchHandler) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive - batchSize: " + batchSize);
+        }
+
+        long count = 0;
+        try (Stream<T> values = streamJsonArray(inputStream, clazz)) {
+            Iterator<T> iterator = values.iterator();
+            List<T> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    count += batch.size();
+                    if (!batchHandler.test(batch)) {
+                        return count;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += batch.size();
+                batchHandler.test(batch);
+            }
+        }
+        return count;
     }
 
     public static String toJson(final Object object, boolean useNullValueField) {
-        return doWriteValueAsString(object, useNullValueField ? getMapper() : getIgnoreNullMapper());
+        return doWriteValueAsString(object, writerFor(object, useNullValueField));
     }
 
     public static String toJson(final Object object) {
@@ -267,9 +556,9 @@ public final class JsonUtils {
 
     }
 
-    private static String doWriteValueAsString(final Object object, final ObjectMapper mapper) {
+    private static String doWriteValueAsString(final Object object, final ObjectWriter writer) {
         try {
-            return mapper.writeValueAsString(object);
+            return writer.writeValueAsString(object);
         } catch (IOException e) {
             throw new JsonEncodeException(e);
         }
@@ -277,23 +566,101 @@ public final class JsonUtils {
 
     public static byte[] toJsonByte(final Object object) {
         try {
-            return MAPPER.writeValueAsBytes(object);
+            return writerFor(object, true).writeValueAsBytes(object);
         } catch (IOException e) {
             throw new JsonEncodeException(e);
         }
     }
 
+    // The stream belongs to the caller and is left open
+    public static void writeJson(final Object object, OutputStream outputStream, boolean useNullValueField) {
+        try {
+            writerFor(object, useNullValueField).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValue(outputStream, object);
+        } catch (IOException e) {
+            throw new JsonEncodeException(e);
+        }
+    }
+
+    public static void writeJson(final Object object, OutputStream outputStream) {
+        writeJson(object, outputStream, true);
+    }
+
+    public static void writeJson(final Object object, WritableByteChannel channel) {
+        writeJson(object, Channels.newOutputStream(channel), true);
+    }
+
+    // Writes at the buffer position and returns the encoded length; the position is restored on overflow
+    public static int writeJson(final Object object, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            writeJson(object, new ByteBufferOutputStream(buffer), true);
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+        return buffer.position() - start;
+    }
+
     public static String toPrettyJson(final Object object) {
         try {
-            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(object);
+            return PRETTY_WRITER.writeValueAsString(object);
+        } catch (IOException e) {
+            throw new JsonEncodeException(e);
+        }
+    }
+
+    public static byte[] toCbor(final Object object, boolean useNullValueField) {
+        try {
+            return cborWriterFor(object, useNullValueField).writeValueAsBytes(object);
         } catch (IOException e) {
             throw new JsonEncodeException(e);
         }
     }
 
+    public static byte[] toCbor(final Object object) {
+        return toCbor(object, true);
+    }
+
+    public static <T> T fromCbor(byte[] bytes, Class<T> clazz) {
+        if (isEmptyArray(bytes)) {
+            return null;
+        }
+
+        try {
+            return cborReaderFor(clazz).readValue(bytes);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
+
+    public static <T> T fromCbor(byte[] bytes, TypeReference<T> typeReference) {
+        if (isEmptyArray(bytes)) {
+            return null;
+        }
+
+        try {
+            return cborReaderFor(typeReference).readValue(bytes);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
+
+    public static <T> T fromCbor(InputStream inputStream, Class<T> clazz) {
+        if (inputStream == null) {
+            return null;
+        }
+
+        try {
+            return cborReaderFor(clazz).readValue(inputStream);
+        } catch (IOException e) {
+            throw new JsonDecodeException(e);
+        }
+    }
+
     public static <T> T jsonStringToObject(final String jsonString, Class<T> clazz) {
         try {
-            return MAPPER.readValue(jsonString, clazz);
+            return readerFor(clazz).readValue(jsonString);
         } catch (JsonProcessingException ex) {
             throw new JsonEncodeException(ex);
         }
@@ -311,6 +678,55 @@ public final class JsonUtils {
         return MAPPER.convertValue(obj, clazz);
     }
 
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
+
+    // Keeps up to maxSize values, evicting the least valuable by Caffeine's size policy, so types seen once in a burst
+    // make room for later hot types instead of taking their place for good
+    static final class BoundedCache<K, V> {
+        private final Cache<K, V> values;
+
+        BoundedCache(int maxSize) {
+            this.values = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    // evictions are cheap at this size, run them on the caller instead of the common pool
+                    .executor(Runnable::run)
+                    .build();
+        }
+
+        V get(K key, Function<K, V> factory) {
+            V value = values.getIfPresent(key);
+            if (value != null) {
+                CACHE_HITS.increment();
+                return value;
+            }
+
+            CACHE_MISSES.increment();
+            return values.get(key, factory);
+        }
+
+        // Runs pending evictions first, so the size never reads above maxSize
+        long size() {
+            values.cleanUp();
+            return values.estimatedSize();
+        }
+    }
+
     public static class JsonEncodeException extends RuntimeException {
 
         private static final long serialVersionUID = 4975703115049362769L;
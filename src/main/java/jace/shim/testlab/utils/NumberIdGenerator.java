@@ -1,10 +1,33 @@
 package jace.shim.testlab.utils;
 
+import java.time.Instant;
+
 public class NumberIdGenerator {
 
-    private static Snowflake snowflake = new Snowflake();
+    private static volatile IdGenerator generator = new Snowflake(Snowflake.Mode.LOCK_FREE);
+
+    // Replace the generator backing the static API, e.g. with a StripedSnowflake at startup.
+    public static void setGenerator(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("IdGenerator must not be null");
+        }
+        NumberIdGenerator.generator = generator;
+    }
 
     public static Long generate() {
-        return snowflake.nextId();
+        return generator.nextId();
+    }
+
+    public static long[] generate(int count) {
+        return generator.nextIds(count);
+    }
+
+    // Bounds of the ids created at the millisecond of instant, for primary key range scans by creation time
+    public static long minIdAt(Instant instant) {
+        return generator.minIdAt(instant);
+    }
+
+    public static long maxIdAt(Instant instant) {
+        return generator.maxIdAt(instant);
     }
 }
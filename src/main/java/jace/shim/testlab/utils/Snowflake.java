@@ -4,33 +4,92 @@ import java.net.NetworkInterface;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
-public class Snowflake {
+public class Snowflake implements IdGenerator {
 
     private static final int UNUSED_BITS = 1; // Sign bit, Unused (always set to 0)
     private static final int EPOCH_BITS = 41;
-    private static final int NODE_ID_BITS = 10;
+    static final int NODE_ID_BITS = 10;
     private static final int SEQUENCE_BITS = 12;
 
     private static final long maxNodeId = (1L << NODE_ID_BITS) - 1;
     private static final long maxSequence = (1L << SEQUENCE_BITS) - 1;
 
     // Custom Epoch (January 1, 2015 Midnight UTC = 2015-01-01T00:00:00Z)
-    private static final long DEFAULT_CUSTOM_EPOCH = 1420070400000L;
+    public static final long DEFAULT_CUSTOM_EPOCH = 1420070400000L;
+
+    // Returned by advance() when the sequence of the current millisecond is used up
+    private static final long EXHAUSTED = -1L;
+
+    public enum Mode {
+        // nextId() serializes callers on the instance monitor
+        SYNCHRONIZED,
+        // nextId() publishes (timestamp, sequence) with a single CAS
+        LOCK_FREE
+    }
 
     private final long nodeId;
     private final long customEpoch;
+    private final Mode mode;
 
-    private volatile long lastTimestamp = -1L;
-    private volatile long sequence = 0L;
+    // 0 keeps the strict clock: fail on any step backwards and spin on an exhausted sequence.
+    // Otherwise issued timestamps never go backwards: a clock step back of up to this many millis is absorbed,
+    // an exhausted sequence borrows from the next millisecond up to this far ahead, and beyond that it parks.
+    private final long clockToleranceMillis;
+    private final LongSupplier clock;
 
-    // Create Snowflake with a nodeId and custom epoch
-    public Snowflake(long nodeId, long customEpoch) {
+    // lastTimestamp and sequence packed as (lastTimestamp << SEQUENCE_BITS | sequence), the sign bit set once fenced
+    private final AtomicLong state = new AtomicLong();
+
+    // No id is issued past this timestamp; bounded before the generator is handed out and only moved forward
+    // afterwards, so a stale read only stops early
+    private volatile long issueUntil = Long.MAX_VALUE;
+
+    // Raw clock reading most recently recorded, to tell real clock steps backwards from ids issued ahead of the clock
+    private final AtomicLong lastClockReading = new AtomicLong();
+
+    private final LongAdder clockBackwardCount = new LongAdder();
+    private final LongAccumulator maxBorrowLag = new LongAccumulator(Math::max, 0L);
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder parkCount = new LongAdder();
+
+    // Create Snowflake with a nodeId, custom epoch, mode and clock tolerance
+    public Snowflake(long nodeId, long customEpoch, Mode mode, long clockToleranceMillis) {
+        this(nodeId, customEpoch, mode, clockToleranceMillis, System::currentTimeMillis);
+    }
+
+    // Create Snowflake reading epoch millis from the given clock
+    Snowflake(long nodeId, long customEpoch, Mode mode, long clockToleranceMillis, LongSupplier clock) {
         if (nodeId < 0 || nodeId > maxNodeId) {
             throw new IllegalArgumentException(String.format("NodeId must be between %d and %d", 0, maxNodeId));
         }
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode must not be null");
+        }
+        if (clockToleranceMillis < 0) {
+            throw new IllegalArgumentException("ClockToleranceMillis must not be negative");
+        }
         this.nodeId = nodeId;
         this.customEpoch = customEpoch;
+        this.mode = mode;
+        this.clockToleranceMillis = clockToleranceMillis;
+        this.clock = clock;
+    }
+
+    // Create Snowflake with a nodeId, custom epoch and mode
+    public Snowflake(long nodeId, long customEpoch, Mode mode) {
+        this(nodeId, customEpoch, mode, 0L);
+    }
+
+    // Create Snowflake with a nodeId and custom epoch
+    public Snowflake(long nodeId, long customEpoch) {
+        this(nodeId, customEpoch, Mode.SYNCHRONIZED);
     }
 
     // Create Snowflake with a nodeId
@@ -38,53 +97,249 @@ public class Snowflake {
         this(nodeId, DEFAULT_CUSTOM_EPOCH);
     }
 
+    // Let Snowflake generate a nodeId
+    public Snowflake(Mode mode, long clockToleranceMillis) {
+        this(createNodeId(maxNodeId), DEFAULT_CUSTOM_EPOCH, mode, clockToleranceMillis);
+    }
+
+    // Let Snowflake generate a nodeId
+    public Snowflake(Mode mode) {
+        this(mode, 0L);
+    }
+
     // Let Snowflake generate a nodeId
     public Snowflake() {
-        this.nodeId = createNodeId();
-        this.customEpoch = DEFAULT_CUSTOM_EPOCH;
+        this(Mode.SYNCHRONIZED);
     }
 
-    public synchronized long nextId() {
-        long currentTimestamp = timestamp();
+    @Override
+    public long nextId() {
+        long next = mode == Mode.LOCK_FREE ? nextStateLockFree(1) : nextStateSynchronized(1);
+        return toId(next >>> SEQUENCE_BITS, next & maxSequence);
+    }
 
-        if (currentTimestamp < lastTimestamp) {
-            throw new IllegalStateException("Invalid System Clock!");
+    // Reserve count ids at once, rolling over into the following milliseconds when a sequence runs out.
+    @Override
+    public long[] nextIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive - count: " + count);
+        }
+
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            filled += mode == Mode.LOCK_FREE
+                ? reserveLockFree(ids, filled)
+                : reserveSynchronized(ids, filled);
         }
+        return ids;
+    }
+
+    private synchronized long nextStateSynchronized(int count) {
+        long current = state.get();
+        long currentTimestamp = readClock();
+        long next = advance(current, currentTimestamp, count);
+        while (next == EXHAUSTED) {
+            // Sequence Exhausted, wait till the clock allows another millisecond.
+            currentTimestamp = waitNextMillis(current, currentTimestamp);
+            next = advance(current, currentTimestamp, count);
+        }
+        state.set(next);
+        recordBorrow(current, next, currentTimestamp);
+        return next;
+    }
 
-        if (currentTimestamp == lastTimestamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0) {
-                // Sequence Exhausted, wait till next millisecond.
-                currentTimestamp = waitNextMillis(currentTimestamp);
+    private synchronized int reserveSynchronized(long[] ids, int offset) {
+        long current = state.get();
+        long next = nextStateSynchronized(ids.length - offset);
+        return fill(current, next, ids, offset);
+    }
+
+    private long nextStateLockFree(int count) {
+        while (true) {
+            long current = state.get();
+            long next = casNextState(current, count);
+            if (next != EXHAUSTED) {
+                return next;
             }
-        } else {
-            // reset sequence to start with zero for the next millisecond
-            sequence = 0;
         }
+    }
 
-        lastTimestamp = currentTimestamp;
+    private int reserveLockFree(long[] ids, int offset) {
+        while (true) {
+            long current = state.get();
+            long next = casNextState(current, ids.length - offset);
+            if (next != EXHAUSTED) {
+                return fill(current, next, ids, offset);
+            }
+        }
+    }
 
-        long id = currentTimestamp << (NODE_ID_BITS + SEQUENCE_BITS)
+    // Try to move the state from current in one CAS; EXHAUSTED means the caller has to re-read and retry.
+    private long casNextState(long current, int count) {
+        // the state is read before the clock, so a concurrent winner can never look like a clock rollback
+        long currentTimestamp = readClock();
+        long next = advance(current, currentTimestamp, count);
+        if (next == EXHAUSTED) {
+            // Sequence Exhausted, retry once the clock allows another millisecond.
+            waitNextMillis(current, currentTimestamp);
+            return EXHAUSTED;
+        }
+        if (!state.compareAndSet(current, next)) {
+            return EXHAUSTED;
+        }
+        recordBorrow(current, next, currentTimestamp);
+        return next;
+    }
+
+    // Compute the state after reserving up to count sequences at currentTimestamp, or EXHAUSTED if none is left.
+    private long advance(long current, long currentTimestamp, int count) {
+        if (current < 0) {
+            throw new IllegalStateException("Snowflake is fenced - nodeId: " + nodeId);
+        }
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        long timestamp = currentTimestamp;
+
+        if (timestamp < lastTimestamp) {
+            if (lastTimestamp - timestamp > clockToleranceMillis) {
+                throw new IllegalStateException("Invalid System Clock!");
+            }
+            // Small step backwards, keep issuing from lastTimestamp.
+            timestamp = lastTimestamp;
+        }
+
+        if (timestamp == lastTimestamp) {
+            long available = maxSequence - (current & maxSequence);
+            if (available > 0) {
+                return current + Math.min(count, available);
+            }
+            if (!canBorrow(lastTimestamp + 1, currentTimestamp)) {
+                return EXHAUSTED;
+            }
+            // Borrow the next millisecond ahead of the clock.
+            timestamp = lastTimestamp + 1;
+        }
+
+        if (timestamp > issueUntil) {
+            throw new IllegalStateException("Snowflake may not issue ids after " + (issueUntil + customEpoch)
+                + " - nodeId: " + nodeId);
+        }
+        // reset sequence to start with zero for the next millisecond
+        return timestamp << SEQUENCE_BITS | (Math.min(count, maxSequence + 1) - 1);
+    }
+
+    private boolean canBorrow(long borrowedTimestamp, long currentTimestamp) {
+        return clockToleranceMillis > 0 && borrowedTimestamp - currentTimestamp <= clockToleranceMillis;
+    }
+
+    private void recordBorrow(long current, long next, long currentTimestamp) {
+        if (clockToleranceMillis == 0) {
+            return;
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        if (timestamp > Math.max(currentTimestamp, current >>> SEQUENCE_BITS)) {
+            borrowCount.increment();
+        }
+        if (timestamp > currentTimestamp) {
+            maxBorrowLag.accumulate(timestamp - currentTimestamp);
+        }
+    }
+
+    // Write the ids reserved by moving from current to next, and return how many there were.
+    private int fill(long current, long next, long[] ids, int offset) {
+        long timestamp = next >>> SEQUENCE_BITS;
+        long firstSequence = timestamp == current >>> SEQUENCE_BITS ? (current & maxSequence) + 1 : 0;
+        long lastSequence = next & maxSequence;
+
+        int reserved = (int) (lastSequence - firstSequence + 1);
+        for (int i = 0; i < reserved; i++) {
+            ids[offset + i] = toId(timestamp, firstSequence + i);
+        }
+        return reserved;
+    }
+
+    private long toId(long timestamp, long sequence) {
+        return timestamp << (NODE_ID_BITS + SEQUENCE_BITS)
             | (nodeId << SEQUENCE_BITS)
             | sequence;
-
-        return id;
     }
 
     // Get current timestamp in milliseconds, adjust for the custom epoch.
     private long timestamp() {
-        return Instant.now().toEpochMilli() - customEpoch;
+        return clock.getAsLong() - customEpoch;
     }
 
-    // Block and wait till next millisecond
-    private long waitNextMillis(long currentTimestamp) {
-        while (currentTimestamp == lastTimestamp) {
-            currentTimestamp = timestamp();
+    // Read the clock, counting a reading below the previous one as a step backwards. The previous reading is loaded
+    // before the clock is read, so readings racing across a millisecond boundary are never mistaken for one, and only
+    // the caller replacing it counts a step.
+    private long readClock() {
+        if (clockToleranceMillis == 0) {
+            return timestamp();
+        }
+        long previous = lastClockReading.get();
+        long currentTimestamp = timestamp();
+        if (currentTimestamp != previous && lastClockReading.compareAndSet(previous, currentTimestamp)
+            && currentTimestamp < previous) {
+            clockBackwardCount.increment();
         }
         return currentTimestamp;
     }
 
-    private long createNodeId() {
+    // Wait till the clock moves far enough past the exhausted lastTimestamp of current
+    private long waitNextMillis(long current, long currentTimestamp) {
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        if (clockToleranceMillis == 0) {
+            // Block and wait till next millisecond
+            while (currentTimestamp <= lastTimestamp) {
+                Thread.onSpinWait();
+                currentTimestamp = timestamp();
+            }
+            return currentTimestamp;
+        }
+
+        // Park instead of spinning until borrowing from lastTimestamp + 1 is within the tolerance again.
+        long readyAt = lastTimestamp + 1 - clockToleranceMillis;
+        while (currentTimestamp < readyAt) {
+            parkCount.increment();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(readyAt - currentTimestamp));
+            currentTimestamp = readClock();
+        }
+        return currentTimestamp;
+    }
+
+    // Synchronized against nextStateSynchronized, which writes the state without a CAS
+    @Override
+    public synchronized long fence() {
+        while (true) {
+            long current = state.get();
+            if (current < 0 || state.compareAndSet(current, current | Long.MIN_VALUE)) {
+                return ((current & Long.MAX_VALUE) >>> SEQUENCE_BITS) + customEpoch;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void issueUntil(long epochMillis) {
+        issueUntil = Math.max(issueUntil == Long.MAX_VALUE ? Long.MIN_VALUE : issueUntil, epochMillis - customEpoch);
+    }
+
+    // Moves the state to the last sequence of epochMillis, so the next id is issued from a later millisecond
+    @Override
+    public synchronized void resumeAfter(long epochMillis) {
+        long resumed = (epochMillis - customEpoch) << SEQUENCE_BITS | maxSequence;
+        while (true) {
+            long current = state.get();
+            if (current < 0) {
+                throw new IllegalStateException("Snowflake is fenced - nodeId: " + nodeId);
+            }
+            if (current >= resumed || state.compareAndSet(current, resumed)) {
+                return;
+            }
+        }
+    }
+
+    // Derive a nodeId in [0, maxNodeId] from the MAC addresses of this host
+    static long createNodeId(long maxNodeId) {
         long nodeId;
         try {
             StringBuilder sb = new StringBuilder();
@@ -117,10 +372,47 @@ public class Snowflake {
         return new long[]{timestamp, nodeId, sequence};
     }
 
+    // Lowest id any node can issue at the millisecond of instant
+    @Override
+    public long minIdAt(Instant instant) {
+        long timestamp = Math.max(instant.toEpochMilli() - customEpoch, 0);
+        return timestamp << (NODE_ID_BITS + SEQUENCE_BITS);
+    }
+
+    // Highest id any node can issue at the millisecond of instant
+    @Override
+    public long maxIdAt(Instant instant) {
+        return minIdAt(instant) | ((1L << (NODE_ID_BITS + SEQUENCE_BITS)) - 1);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // Number of times the clock read lower than before, whether or not the ids were ahead of it already
+    public long getClockBackwardCount() {
+        return clockBackwardCount.sum();
+    }
+
+    // Furthest an issued timestamp ran ahead of the clock, by borrowing or by absorbing a step backwards
+    public long getMaxBorrowLagMillis() {
+        return maxBorrowLag.get();
+    }
+
+    // Number of reservations issued from a millisecond ahead of the clock
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    // Number of times a caller parked because borrowing would exceed the tolerance
+    public long getParkCount() {
+        return parkCount.sum();
+    }
+
     @Override
     public String toString() {
         return "Snowflake Settings [EPOCH_BITS=" + EPOCH_BITS + ", NODE_ID_BITS=" + NODE_ID_BITS
             + ", SEQUENCE_BITS=" + SEQUENCE_BITS + ", CUSTOM_EPOCH=" + customEpoch
-            + ", NodeId=" + nodeId + "]";
+            + ", NodeId=" + nodeId + ", Mode=" + mode + ", ClockToleranceMillis=" + clockToleranceMillis + "]";
     }
 }
@@ -0,0 +1,149 @@
+package jace.shim.testlab.utils;
+
+import java.time.Instant;
+
+// A pool of Snowflake generators, one per stripe, so that threads on different stripes never share state.
+// The low bits of each sub-generator's nodeId hold the stripe index, the high bits hold the base nodeId.
+public class StripedSnowflake implements IdGenerator {
+
+    private final long baseNodeId;
+    private final Snowflake[] stripes;
+    private final int stripeMask;
+
+    public StripedSnowflake(long baseNodeId, int stripeCount, long customEpoch, long clockToleranceMillis) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1 || stripeCount > maxStripeCount()) {
+            throw new IllegalArgumentException(
+                String.format("StripeCount must be a power of two between %d and %d", 1, maxStripeCount()));
+        }
+        long maxBaseNodeId = maxBaseNodeId(stripeCount);
+        if (baseNodeId < 0 || baseNodeId > maxBaseNodeId) {
+            throw new IllegalArgumentException(String.format("BaseNodeId must be between %d and %d", 0, maxBaseNodeId));
+        }
+
+        int stripeBits = Integer.numberOfTrailingZeros(stripeCount);
+        this.baseNodeId = baseNodeId;
+        this.stripes = new Snowflake[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Snowflake(baseNodeId << stripeBits | i, customEpoch, Snowflake.Mode.LOCK_FREE,
+                clockToleranceMillis);
+        }
+    }
+
+    public StripedSnowflake(long baseNodeId, int stripeCount) {
+        this(baseNodeId, stripeCount, Snowflake.DEFAULT_CUSTOM_EPOCH, 0L);
+    }
+
+    // Let StripedSnowflake generate a baseNodeId
+    public StripedSnowflake(int stripeCount, long clockToleranceMillis) {
+        this(Snowflake.createNodeId(maxBaseNodeId(stripeCount)), stripeCount, Snowflake.DEFAULT_CUSTOM_EPOCH,
+            clockToleranceMillis);
+    }
+
+    // Let StripedSnowflake generate a baseNodeId
+    public StripedSnowflake(int stripeCount) {
+        this(stripeCount, 0L);
+    }
+
+    // Largest baseNodeId left once log2(stripeCount) nodeId bits are taken by the stripe index
+    public static long maxBaseNodeId(int stripeCount) {
+        return (1L << (Snowflake.NODE_ID_BITS - Integer.numberOfTrailingZeros(stripeCount))) - 1;
+    }
+
+    private static int maxStripeCount() {
+        return 1 << Snowflake.NODE_ID_BITS;
+    }
+
+    @Override
+    public long nextId() {
+        return stripe().nextId();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return stripe().nextIds(count);
+    }
+
+    // Threads are spread round-robin by their id; threads sharing a stripe fall back to its CAS.
+    private Snowflake stripe() {
+        return stripes[(int) Thread.currentThread().threadId() & stripeMask];
+    }
+
+    @Override
+    public long minIdAt(Instant instant) {
+        return stripes[0].minIdAt(instant);
+    }
+
+    @Override
+    public long maxIdAt(Instant instant) {
+        return stripes[0].maxIdAt(instant);
+    }
+
+    @Override
+    public long fence() {
+        long lastIssuedAt = Long.MIN_VALUE;
+        for (Snowflake stripe : stripes) {
+            lastIssuedAt = Math.max(lastIssuedAt, stripe.fence());
+        }
+        return lastIssuedAt;
+    }
+
+    @Override
+    public void issueUntil(long epochMillis) {
+        for (Snowflake stripe : stripes) {
+            stripe.issueUntil(epochMillis);
+        }
+    }
+
+    @Override
+    public void resumeAfter(long epochMillis) {
+        for (Snowflake stripe : stripes) {
+            stripe.resumeAfter(epochMillis);
+        }
+    }
+
+    public long[] parse(long id) {
+        return stripes[0].parse(id);
+    }
+
+    public long getClockBackwardCount() {
+        long count = 0;
+        for (Snowflake stripe : stripes) {
+            count += stripe.getClockBackwardCount();
+        }
+        return count;
+    }
+
+    public long getBorrowCount() {
+        long count = 0;
+        for (Snowflake stripe : stripes) {
+            count += stripe.getBorrowCount();
+        }
+        return count;
+    }
+
+    public long getMaxBorrowLagMillis() {
+        long lag = 0;
+        for (Snowflake stripe : stripes) {
+            lag = Math.max(lag, stripe.getMaxBorrowLagMillis());
+        }
+        return lag;
+    }
+
+    public long getParkCount() {
+        long count = 0;
+        for (Snowflake stripe : stripes) {
+            count += stripe.getParkCount();
+        }
+        return count;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "StripedSnowflake Settings [BaseNodeId=" + baseNodeId + ", StripeCount=" + stripes.length + "]";
+    }
+}
@@ -0,0 +1,114 @@
+package jace.shim.testlab.cart;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartCacheTest {
+    private static final Long CART_ID = 10L;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, CartResponse> loader = cartId -> {
+        loads.incrementAndGet();
+        return new CartResponse(cartId, 1000L, Collections.emptyList());
+    };
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("같은 장바구니를 다시 조회하면 캐시에서 리턴하고 hit/miss가 기록된다")
+    void readThrough() {
+        // given
+        CartCache sut = new CartCache(100, Duration.ofMinutes(5));
+
+        // when
+        CartResponse first = sut.get(CART_ID, loader);
+        CartResponse second = sut.get(CART_ID, loader);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(sut.getMissCount()).isEqualTo(1);
+        assertThat(sut.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션이 끝나기 전까지는 캐시를 우회하고 끝나면 무효화된다")
+    void bypassUntilCompletion() {
+        // given
+        CartCache sut = new CartCache(100, Duration.ofMinutes(5));
+        sut.get(CART_ID, loader);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        sut.invalidateAfterCommit(CART_ID);
+        sut.get(CART_ID, loader);
+        sut.get(CART_ID, loader);
+
+        // then
+        assertThat(loads.get()).isEqualTo(3);
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        CartResponse reloaded = sut.get(CART_ID, loader);
+
+        // then
+        assertThat(sut.get(CART_ID, loader)).isSameAs(reloaded);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("최대 크기를 넘으면 캐시에서 제거되고 eviction이 기록된다")
+    void evictsBeyondMaximumSize() {
+        // given
+        CartCache sut = new CartCache(10, Duration.ofMinutes(5));
+
+        // when
+        for (long cartId = 0; cartId < 1000; cartId++) {
+            sut.get(cartId, loader);
+        }
+        sut.cleanUp();
+
+        // then
+        assertThat(sut.getEvictionCount()).isGreaterThanOrEqualTo(990);
+    }
+
+    @Test
+    @DisplayName("off-heap 모드에서는 두번째 조회부터 off-heap에서 읽은 스냅샷을 리턴하고, 쓰기가 끝나면 무효화된다")
+    void offHeapReadThrough() {
+        // given
+        CartCache sut = new CartCache(100, Duration.ofMinutes(5), true, DataSize.ofMegabytes(1));
+        sut.getView(CART_ID, loader);
+
+        // when
+        CartView cached = sut.getView(CART_ID, loader);
+
+        // then
+        assertThat(cached).isInstanceOf(CartSnapshot.class);
+        assertThat(((CartSnapshot) cached).toResponse()).isEqualTo(loader.apply(CART_ID));
+        assertThat(sut.getHitCount()).isEqualTo(1);
+
+        // when
+        sut.invalidateAfterCommit(CART_ID);
+
+        // then
+        assertThat(sut.getView(CART_ID, loader)).isInstanceOf(CartResponse.class);
+    }
+}
@@ -0,0 +1,117 @@
+package jace.shim.testlab.cart;
+
+import jace.shim.testlab.common.ConcurrencyRetryListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"testlab.retry.max-attempts=100", "testlab.retry.delay-millis=1", "testlab.retry.max-delay-millis=20"})
+class CartConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int LINES_PER_THREAD = 10;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartCache cartCache;
+
+    @Autowired
+    private ConcurrencyRetryListener retryListener;
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.deleteAll();
+        cartCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 장바구니에 서로 다른 상품을 동시에 추가하면 충돌을 재시도해 모두 추가된다")
+    void addDistinctProductsConcurrently() throws Exception {
+        // given
+        Long cartId = cartService.createCart(1000L).getId();
+        long conflictsBefore = retryListener.getConflictCount();
+
+        // when
+        AtomicInteger failures = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < LINES_PER_THREAD; i++) {
+                try {
+                    cartService.addCartLine(cartId, new CartLineParam(thread * 1000L + i, 1));
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+
+        // then
+        assertThat(failures.get()).isZero();
+        assertThat(cartRepository.findById(cartId).get().getCartLines()).hasSize(THREADS * LINES_PER_THREAD);
+        assertThat(cartService.getCartResponse(cartId).cartLines()).hasSize(THREADS * LINES_PER_THREAD);
+        assertThat(retryListener.getConflictCount()).isGreaterThan(conflictsBefore);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 장바구니에 같은 상품을 동시에 추가하면 하나만 추가되고 나머지는 에러가 발생한다")
+    void addSameProductConcurrently() throws Exception {
+        // given
+        Long cartId = cartService.createCart(1000L).getId();
+
+        // when
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        runConcurrently(thread -> {
+            try {
+                cartService.addCartLine(cartId, new CartLineParam(10000L, 1));
+                successes.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                duplicates.incrementAndGet();
+            }
+        });
+
+        // then
+        assertThat(successes.get()).isEqualTo(1);
+        assertThat(duplicates.get()).isEqualTo(THREADS - 1);
+        assertThat(cartRepository.findById(cartId).get().getCartLines()).hasSize(1);
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            final int current = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(current);
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -1,7 +1,11 @@
 package jace.shim.testlab.cart;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import jace.shim.testlab.common.JsonUtilsHttpMessageConverter;
 import jace.shim.testlab.utils.JsonUtils;
+import jace.shim.testlab.utils.NumberIdGenerator;
 import jakarta.transaction.Transactional;
+import java.time.Instant;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,13 +13,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -27,9 +34,16 @@ class CartControllerTest {
     @Autowired
     private CartRepository cartRepository;
 
+    @Autowired
+    private CartCache cartCache;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
     @AfterEach
     void tearDown() {
         cartRepository.deleteAll();
+        cartCache.invalidateAll();
     }
 
     @Test
@@ -49,6 +63,39 @@ class CartControllerTest {
         assertThat(actual.getCartLines().get(0).getId()).isEqualTo(1000L);
     }
 
+    @Test
+    @DisplayName("장바구니 조회 응답은 Spring Boot의 JSON 변환기보다 먼저 JsonUtils로 응답 본문에 직접 쓴다")
+    public void getCartWrittenByJsonUtils() throws Exception {
+        final Long givenId = 10L;
+        cartRepository.save(new Cart(givenId, 100L, List.of(new CartLine(1000L, 10000L, 1))));
+
+        MvcResult result = mockMvc.perform(get("/carts/{cartId}", givenId))
+                .andExpect(status().isOk()).andReturn();
+
+        assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(JsonUtils.toJson(new CartResponse(givenId, 100L, List.of(new CartLineResponse(1000L, 10000L, 1)))));
+        List<Class<?>> converterTypes = handlerAdapter.getMessageConverters().stream()
+                .<Class<?>>map(Object::getClass).toList();
+        assertThat(converterTypes.indexOf(JsonUtilsHttpMessageConverter.class))
+                .isNotNegative()
+                .isLessThan(converterTypes.indexOf(MappingJackson2HttpMessageConverter.class));
+    }
+
+    @Test
+    @DisplayName("CartLine이 없는 장바구니를 id로 조회하면 빈 CartLines와 함께 리턴한다")
+    public void getCartWithoutCartLines() throws Exception {
+        final Long givenId = 10L;
+        cartRepository.save(new Cart(givenId, 100L, List.of()));
+
+        MvcResult result = mockMvc.perform(get("/carts/{cartId}", givenId))
+                .andExpect(status().isOk()).andReturn();
+
+        JsonNode actual = JsonUtils.fromJson(result.getResponse().getContentAsString());
+
+        assertThat(actual.get("id").asLong()).isEqualTo(givenId);
+        assertThat(actual.get("cartLines")).isEmpty();
+    }
+
     @Test
     @DisplayName("장바구니 id로 조회시 존재하지 않으면 에러가 발생한다")
     public void getCartNotFound() throws Exception {
@@ -91,6 +138,63 @@ class CartControllerTest {
         assertThat(cart.getCartLines()).hasSize(2);
     }
 
+    @Test
+    @DisplayName("장바구니에 여러 CartLine을 한번에 추가하면 모두 저장된다")
+    public void addCartLines() throws Exception {
+        final Long givenId = 10L;
+        cartRepository.save(new Cart(givenId, 100L, List.of(new CartLine(1000L, 10000L, 1))));
+
+        List<CartLineParam> cartLineParams = List.of(new CartLineParam(20000L, 2), new CartLineParam(30000L, 3));
+
+        mockMvc.perform(post("/carts/{cartId}/cart-lines/batch", givenId)
+                .content(JsonUtils.toJson(cartLineParams))
+                .contentType("application/json"))
+                .andExpect(status().isOk());
+
+        Cart cart = cartRepository.findById(givenId).get();
+        assertThat(cart.getCartLines()).extracting(CartLine::getProductId).containsExactlyInAnyOrder(10000L, 20000L, 30000L);
+    }
+
+    @Test
+    @DisplayName("장바구니에 여러 CartLine을 한번에 추가할 때 기존 상품과 겹치면 에러가 발생하고 아무것도 저장되지 않는다")
+    public void addCartLinesDuplicated() throws Exception {
+        final Long givenId = 10L;
+        cartRepository.save(new Cart(givenId, 100L, List.of(new CartLine(1000L, 10000L, 1))));
+
+        List<CartLineParam> cartLineParams = List.of(new CartLineParam(20000L, 2), new CartLineParam(10000L, 3));
+
+        mockMvc.perform(post("/carts/{cartId}/cart-lines/batch", givenId)
+                .content(JsonUtils.toJson(cartLineParams))
+                .contentType("application/json"))
+                .andExpect(status().isInternalServerError());
+
+        Cart cart = cartRepository.findById(givenId).get();
+        assertThat(cart.getCartLines()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("CBOR로 CartLine을 추가하면 CBOR로 인코딩된 장바구니를 리턴한다")
+    public void addCartLineWithCbor() throws Exception {
+        final Long givenId = 10L;
+        cartRepository.save(new Cart(givenId, 100L, List.of(new CartLine(1000L, 10000L, 1))));
+
+        CartLineParam cartLineParam = new CartLineParam(20000L, 2);
+
+        MvcResult result = mockMvc.perform(post("/carts/{cartId}/cart-lines", givenId)
+                        .content(JsonUtils.toCbor(cartLineParam))
+                        .contentType("application/cbor")
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+
+        Cart actual = JsonUtils.fromCbor(result.getResponse().getContentAsByteArray(), Cart.class);
+
+        assertThat(actual.getId()).isEqualTo(givenId);
+        assertThat(actual.getCartLines()).hasSize(2);
+        assertThat(actual.getCartLines().get(1).getProductId()).isEqualTo(20000L);
+    }
+
     @Test
     @DisplayName("장바구니에 CartLine을 추가하려고 할 때 장바구니가 존재하지 않으면 에러가 발생한다")
     public void addCartLineCartNotFound() throws Exception {
@@ -102,4 +206,85 @@ class CartControllerTest {
                 .contentType("application/json"))
                 .andExpect(status().isInternalServerError());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("생성 시각 구간으로 조회하면 구간 안에서 생성된 장바구니를 id 순서로 페이지 단위로 리턴한다")
+    public void getCartsCreatedBetween() throws Exception {
+        final Instant givenFrom = Instant.parse("2024-10-01T00:00:00Z");
+        final Long firstId = NumberIdGenerator.minIdAt(givenFrom) + 1;
+        final Long secondId = NumberIdGenerator.minIdAt(givenFrom.plusSeconds(1));
+        final Long outOfRangeId = NumberIdGenerator.minIdAt(givenFrom.plusSeconds(2));
+        cartRepository.save(new Cart(firstId, 100L, List.of()));
+        cartRepository.save(new Cart(secondId, 100L, List.of()));
+        cartRepository.save(new Cart(outOfRangeId, 100L, List.of()));
+
+        MvcResult first = mockMvc.perform(get("/carts")
+                        .param("from", "2024-10-01T09:00:00+09:00")
+                        .param("to", "2024-10-01T09:00:01+09:00")
+                        .param("size", "1"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode firstPage = JsonUtils.fromJson(first.getResponse().getContentAsString());
+
+        assertThat(firstPage.get("content")).hasSize(1);
+        assertThat(firstPage.get("content").get(0).get("id").asLong()).isEqualTo(firstId);
+        assertThat(firstPage.get("nextCursor").asLong()).isEqualTo(firstId);
+
+        MvcResult second = mockMvc.perform(get("/carts")
+                        .param("from", "2024-10-01T09:00:00+09:00")
+                        .param("to", "2024-10-01T09:00:01+09:00")
+                        .param("after", firstPage.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode secondPage = JsonUtils.fromJson(second.getResponse().getContentAsString());
+
+        assertThat(secondPage.get("content")).hasSize(1);
+        assertThat(secondPage.get("content").get(0).get("id").asLong()).isEqualTo(secondId);
+        assertThat(secondPage.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("사용자 id로 조회하면 해당 사용자의 장바구니를 CartLine 개수와 함께 id 순서로 페이지 단위로 리턴한다")
+    public void getCartsOfUser() throws Exception {
+        cartRepository.save(new Cart(10L, 100L, List.of(new CartLine(1000L, 10000L, 1), new CartLine(1001L, 10001L, 1))));
+        cartRepository.save(new Cart(20L, 200L, List.of()));
+        cartRepository.save(new Cart(30L, 100L, List.of()));
+
+        MvcResult first = mockMvc.perform(get("/carts")
+                        .param("userId", "100")
+                        .param("size", "1"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode firstPage = JsonUtils.fromJson(first.getResponse().getContentAsString());
+
+        assertThat(firstPage.get("content")).hasSize(1);
+        assertThat(firstPage.get("content").get(0).get("id").asLong()).isEqualTo(10L);
+        assertThat(firstPage.get("content").get(0).get("lineCount").asInt()).isEqualTo(2);
+        assertThat(firstPage.get("content").get(0).has("cartLines")).isFalse();
+        assertThat(firstPage.get("nextCursor").asLong()).isEqualTo(10L);
+
+        MvcResult second = mockMvc.perform(get("/carts")
+                        .param("userId", "100")
+                        .param("after", firstPage.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode secondPage = JsonUtils.fromJson(second.getResponse().getContentAsString());
+
+        assertThat(secondPage.get("content")).hasSize(1);
+        assertThat(secondPage.get("content").get(0).get("id").asLong()).isEqualTo(30L);
+        assertThat(secondPage.get("content").get(0).get("lineCount").asInt()).isZero();
+        assertThat(secondPage.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("사용자 id와 생성 시각 구간을 함께 넘기면 어느 장바구니 조회도 선택하지 않고 400을 리턴한다")
+    public void getCartsWithMixedParams() throws Exception {
+        mockMvc.perform(get("/carts")
+                        .param("userId", "100")
+                        .param("from", "2024-10-01T00:00:00+09:00")
+                        .param("to", "2024-10-02T00:00:00+09:00"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/carts")
+                        .param("userId", "100")
+                        .param("to", "2024-10-02T00:00:00+09:00"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,136 @@
+package jace.shim.testlab.cart;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartMutationLogTest {
+    private static final int CAPACITY = CartMutationLog.HEADER_SIZE + CartMutationLog.RECORD_SIZE * 4;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("다시 열면 체크포인트 이후에 추가된 변경만 복구한다")
+    void recoverAfterCheckpoint() {
+        // given
+        Path path = directory.resolve("cart-mutations.log");
+        CartMutationLog log = new CartMutationLog(path, CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1), new CartLine(101L, 1001L, 2)));
+        log.checkpoint(1);
+        log.close();
+
+        // when
+        CartMutationLog recovered = new CartMutationLog(path, CAPACITY, false);
+
+        // then
+        assertThat(recovered.peek(10)).containsExactly(new CartMutation(2, 10L, 101L, 1001L, 2));
+    }
+
+    @Test
+    @DisplayName("체크포인트된 기록의 자리는 아직 남은 기록이 있어도 이어서 다시 쓰고, 복구할 때 순서대로 읽는다")
+    void wrapAroundPendingRecords() {
+        // given
+        Path path = directory.resolve("cart-mutations.log");
+        CartMutationLog log = new CartMutationLog(path, CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1), new CartLine(101L, 1001L, 1), new CartLine(102L, 1002L, 1)));
+        log.checkpoint(2);
+
+        // when
+        long sequence = log.append(20L, List.of(new CartLine(200L, 2000L, 1), new CartLine(201L, 2001L, 1)));
+        log.close();
+
+        // then
+        assertThat(sequence).isEqualTo(5L);
+        CartMutationLog recovered = new CartMutationLog(path, CAPACITY, false);
+        assertThat(recovered.peek(10)).extracting(CartMutation::sequence).containsExactly(3L, 4L, 5L);
+        assertThat(recovered.getCommittedSequence()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("모든 변경이 체크포인트되면 이전 기록은 복구하지 않고, 시퀀스는 이어서 발급한다")
+    void skipCommittedRecords() {
+        // given
+        Path path = directory.resolve("cart-mutations.log");
+        CartMutationLog log = new CartMutationLog(path, CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1), new CartLine(101L, 1001L, 1), new CartLine(102L, 1002L, 1)));
+        log.checkpoint(3);
+        log.close();
+
+        // when
+        CartMutationLog recovered = new CartMutationLog(path, CAPACITY, false);
+        long sequence = recovered.append(20L, List.of(new CartLine(200L, 2000L, 1)));
+
+        // then
+        assertThat(sequence).isEqualTo(4L);
+        assertThat(recovered.peek(10)).extracting(CartMutation::sequence).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("남은 공간이 부족하면 일부만 쓰지 않고 실패한다")
+    void appendAllOrNone() {
+        // given
+        CartMutationLog log = new CartMutationLog(directory.resolve("cart-mutations.log"), CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1), new CartLine(101L, 1001L, 1), new CartLine(102L, 1002L, 1)));
+
+        // when
+        long sequence = log.append(20L, List.of(new CartLine(200L, 2000L, 1), new CartLine(201L, 2001L, 1)));
+
+        // then
+        assertThat(sequence).isEqualTo(-1L);
+        assertThat(log.getPendingCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("체크섬이 맞지 않는 기록부터는 복구하지 않고, 그 기록이 속한 추가도 모두 버린다")
+    void stopAtTornRecord() throws Exception {
+        // given
+        Path path = directory.resolve("cart-mutations.log");
+        CartMutationLog log = new CartMutationLog(path, CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1)));
+        log.append(20L, List.of(new CartLine(200L, 2000L, 1), new CartLine(201L, 2001L, 1), new CartLine(202L, 2002L, 1)));
+        log.close();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{7}), CartMutationLog.HEADER_SIZE + CartMutationLog.RECORD_SIZE * 2 + 20);
+        }
+
+        // when
+        CartMutationLog recovered = new CartMutationLog(path, CAPACITY, false);
+
+        // then
+        assertThat(recovered.peek(10)).extracting(CartMutation::sequence).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("마지막 기록까지 쓰지 못하고 중단된 추가는 복구하지 않고, 그 자리부터 같은 시퀀스로 다시 쓴다")
+    void discardUnfinishedAppend() throws Exception {
+        // given
+        Path path = directory.resolve("cart-mutations.log");
+        CartMutationLog log = new CartMutationLog(path, CAPACITY, false);
+        log.append(10L, List.of(new CartLine(100L, 1000L, 1)));
+        log.append(20L, List.of(new CartLine(200L, 2000L, 1), new CartLine(201L, 2001L, 1), new CartLine(202L, 2002L, 1)));
+        log.close();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(CartMutationLog.RECORD_SIZE),
+                    CartMutationLog.HEADER_SIZE + CartMutationLog.RECORD_SIZE * 3);
+        }
+
+        // when
+        CartMutationLog recovered = new CartMutationLog(path, CAPACITY, false);
+        long sequence = recovered.append(30L, List.of(new CartLine(300L, 3000L, 1)));
+        recovered.close();
+
+        // then
+        assertThat(sequence).isEqualTo(2L);
+        assertThat(new CartMutationLog(path, CAPACITY, false).peek(10)).extracting(CartMutation::cartLineId)
+                .containsExactly(100L, 300L);
+    }
+}
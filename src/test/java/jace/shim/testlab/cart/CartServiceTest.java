@@ -1,15 +1,18 @@
 package jace.shim.testlab.cart;
 
 import jace.shim.testlab.utils.NumberIdGenerator;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
 
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 class CartServiceTest {
@@ -26,7 +29,7 @@ class CartServiceTest {
         final CartRepository cartRepository = mock(CartRepository.class);
         when(cartRepository.findById(givenCartId)).thenReturn(Optional.of(givenCart));
 
-        CartService sut = new CartService(cartRepository);
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
 
         // when
         Cart actual = sut.getCart(givenCartId);
@@ -36,6 +39,51 @@ class CartServiceTest {
         assertThat(actual.getUserId()).isEqualTo(givenUserId);
     }
 
+    @Test
+    @DisplayName("장바구니 응답을 조회하면 한번의 조회 결과로 장바구니와 CartLine을 구성하고 다시 조회하면 캐시된 응답을 리턴한다")
+    void getCartResponseCached() {
+        // given
+        final Long givenCartId = 10L;
+
+        final CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findCartRows(givenCartId)).thenReturn(List.of(
+                new CartRow(givenCartId, 1000L, 1L, 10000L, 1),
+                new CartRow(givenCartId, 1000L, 2L, 20000L, 2)));
+
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
+
+        // when
+        CartResponse first = sut.getCartResponse(givenCartId);
+        CartResponse actual = sut.getCartResponse(givenCartId);
+
+        // then
+        assertThat(actual).isSameAs(first);
+        assertThat(actual.userId()).isEqualTo(1000L);
+        assertThat(actual.cartLines()).containsExactly(new CartLineResponse(1L, 10000L, 1), new CartLineResponse(2L, 20000L, 2));
+        verify(cartRepository, times(1)).findCartRows(givenCartId);
+        verify(cartRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("CartLine이 없는 장바구니의 응답을 조회하면 빈 CartLines를 리턴하고 존재하지 않으면 에러가 발생한다")
+    void getCartResponseWithoutLines() {
+        // given
+        final CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findCartRows(10L)).thenReturn(List.of(new CartRow(10L, 1000L, null, null, null)));
+        when(cartRepository.findCartRows(20L)).thenReturn(List.of());
+
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
+
+        // when
+        CartResponse actual = sut.getCartResponse(10L);
+
+        // then
+        assertThat(actual.cartLines()).isEmpty();
+        assertThatThrownBy(() -> sut.getCartResponse(20L)
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart not found - cartId: 20");
+    }
+
     @Test
     @DisplayName("장바구니 id로 조회시 존재하지 않으면 에러가 발생한다")
     void getCartNotFound() {
@@ -45,7 +93,7 @@ class CartServiceTest {
         final CartRepository cartRepository = mock(CartRepository.class);
         when(cartRepository.findById(givenCartId)).thenReturn(Optional.empty());
 
-        CartService sut = new CartService(cartRepository);
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
 
         // verify
         assertThatThrownBy(() -> sut.getCart(givenCartId)
@@ -60,20 +108,21 @@ class CartServiceTest {
         final Long givenCartId = 10L;
         final Long givenUserId = 1000L;
 
-        mockStatic(NumberIdGenerator.class);
-        when(NumberIdGenerator.generate()).thenReturn(givenCartId);
+        try (MockedStatic<NumberIdGenerator> numberIdGenerator = mockStatic(NumberIdGenerator.class)) {
+            numberIdGenerator.when(NumberIdGenerator::generate).thenReturn(givenCartId);
 
-        final CartRepository cartRepository = mock(CartRepository.class);
-        when(cartRepository.save(any())).thenReturn(new Cart(10L, givenUserId, Collections.emptyList()));
+            final CartRepository cartRepository = mock(CartRepository.class);
+            when(cartRepository.save(any())).thenReturn(new Cart(10L, givenUserId, Collections.emptyList()));
 
-        CartService sut = new CartService(cartRepository);
+            CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
 
-        // when
-        Cart actual = sut.createCart(givenUserId);
+            // when
+            Cart actual = sut.createCart(givenUserId);
 
-        // then
-        assertThat(actual.getId()).isEqualTo(10L);
-        assertThat(actual.getUserId()).isEqualTo(givenUserId);
+            // then
+            assertThat(actual.getId()).isEqualTo(10L);
+            assertThat(actual.getUserId()).isEqualTo(givenUserId);
+        }
     }
 
     @Test
@@ -92,7 +141,7 @@ class CartServiceTest {
         when(cartRepository.findById(givenCartId)).thenReturn(Optional.of(givenCart));
         when(cartRepository.save(any())).thenReturn(new Cart(givenCartId, givenUserId, Collections.singletonList(new CartLine(givenCartLineId, 10000L, 1))));
 
-        CartService sut = new CartService(cartRepository);
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
 
         // when
         Cart actual = sut.addCartLine(givenCartId, givenCartLineParam);
@@ -112,11 +161,55 @@ class CartServiceTest {
         final CartRepository cartRepository = mock(CartRepository.class);
         when(cartRepository.findById(givenCartId)).thenReturn(Optional.empty());
 
-        CartService sut = new CartService(cartRepository);
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
 
         // verify
         assertThatThrownBy(() -> sut.addCartLine(givenCartId, givenCartLineParam)
         ).isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Cart not found - cartId: 10");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("장바구니에 여러 CartLine을 추가하면 id를 한번에 발급받아 모두 추가된 장바구니를 리턴한다")
+    void addCartLines() {
+        // given
+        final Long givenCartId = 10L;
+        final Cart givenCart = new Cart(givenCartId, 1000L, new ArrayList<>());
+
+        try (MockedStatic<NumberIdGenerator> numberIdGenerator = mockStatic(NumberIdGenerator.class)) {
+            numberIdGenerator.when(() -> NumberIdGenerator.generate(2)).thenReturn(new long[]{2000L, 3000L});
+
+            final CartRepository cartRepository = mock(CartRepository.class);
+            when(cartRepository.findById(givenCartId)).thenReturn(Optional.of(givenCart));
+
+            CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
+
+            // when
+            Cart actual = sut.addCartLines(givenCartId, List.of(new CartLineParam(20000L, 1), new CartLineParam(30000L, 2)));
+
+            // then
+            assertThat(actual.getCartLines().size()).isEqualTo(2);
+            assertThat(actual.getCartLines().get(0).getId()).isEqualTo(2000L);
+            assertThat(actual.getCartLines().get(1).getId()).isEqualTo(3000L);
+            numberIdGenerator.verify(() -> NumberIdGenerator.generate(2));
+        }
+    }
+
+    @Test
+    @DisplayName("한번에 추가하는 CartLine이 없거나 최대 개수를 넘으면 에러가 발생한다")
+    void addCartLinesInvalidSize() {
+        // given
+        final CartRepository cartRepository = mock(CartRepository.class);
+        CartService sut = new CartService(cartRepository, new CartCache(100, Duration.ofMinutes(5)));
+        List<CartLineParam> tooMany = Collections.nCopies(CartService.MAX_CART_LINES_PER_REQUEST + 1, new CartLineParam(10000L, 1));
+
+        // verify
+        assertThatThrownBy(() -> sut.addCartLines(10L, List.of())
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("cartLines size must be between 1 and 1000 - size: 0");
+        assertThatThrownBy(() -> sut.addCartLines(10L, tooMany)
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("cartLines size must be between 1 and 1000 - size: 1001");
+        verifyNoInteractions(cartRepository);
+    }
+}
@@ -0,0 +1,109 @@
+package jace.shim.testlab.cart;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The node lease heartbeat is disabled so that only the statements of the operation under test are counted
+@SpringBootTest(properties = "testlab.id.node-lease.enabled=false")
+class CartStatementCountTest {
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartCache cartCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.deleteAll();
+        cartCache.invalidateAll();
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("장바구니를 생성하면 조회 없이 INSERT 한번만 실행한다")
+    void createCart() {
+        // given
+        statistics.clear();
+
+        // when
+        cartService.createCart(1000L);
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("장바구니에 CartLine을 추가하면 장바구니 조회, CartLine INSERT, 장바구니 버전 UPDATE만 실행한다")
+    void addCartLine() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        statistics.clear();
+
+        // when
+        cartService.addCartLine(cart.getId(), new CartLineParam(10000L, 1));
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("장바구니에 여러 CartLine을 추가하면 장바구니 조회, 한번의 배치 INSERT, 장바구니 버전 UPDATE만 실행한다")
+    void addCartLines() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        statistics.clear();
+
+        // when
+        cartService.addCartLines(cart.getId(), List.of(
+                new CartLineParam(10000L, 1), new CartLineParam(20000L, 2), new CartLineParam(30000L, 3)));
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("장바구니 응답을 조회하면 쿼리를 한번만 실행한다")
+    void getCartResponse() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        cartService.addCartLines(cart.getId(), List.of(new CartLineParam(10000L, 1), new CartLineParam(20000L, 2)));
+        statistics.clear();
+
+        // when
+        CartResponse actual = cartService.getCartResponse(cart.getId());
+
+        // then
+        assertThat(actual.cartLines()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -142,4 +142,87 @@ class CartTest {
         assertThat(sut.getCartLines().get(0).getId()).isEqualTo(2000L);
         assertThat(sut.getCartLines().get(0).getProductId()).isEqualTo(20000L);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("장바구니에서 CartLine을 제거한 뒤에도 상품 id로 남은 CartLine을 찾을 수 있고 제거한 상품은 다시 추가할 수 있다")
+    void removeCartLineKeepsIndex() {
+        // given
+        Cart sut = new Cart(10L, 100L, Lists.list(
+                new CartLine(1000L, 10000L, 1), new CartLine(2000L, 20000L, 1), new CartLine(3000L, 30000L, 1)));
+
+        // when
+        sut.removeCartLine(new CartLine(1000L, 10000L, 1));
+        sut.addCartLine(new CartLine(4000L, 10000L, 2));
+
+        // then
+        assertThat(sut.getCartLines()).extracting(CartLine::getId).containsExactlyInAnyOrder(2000L, 3000L, 4000L);
+        assertThat(sut.findCartLine(20000L)).map(CartLine::getId).contains(2000L);
+        assertThat(sut.findCartLine(30000L)).map(CartLine::getId).contains(3000L);
+        assertThat(sut.findCartLine(10000L)).map(CartLine::getId).contains(4000L);
+        assertThatThrownBy(() -> sut.addCartLine(new CartLine(5000L, 30000L, 1))
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CartLine already exists - productId: 30000");
+    }
+
+    @Test
+    @DisplayName("장바구니에 없는 CartLine을 제거하면 아무것도 제거되지 않는다")
+    void removeMissingCartLine() {
+        // given
+        Cart sut = new Cart(10L, 100L, Lists.list(new CartLine(1000L, 10000L, 1)));
+
+        // when
+        sut.removeCartLine(new CartLine(9000L, 10000L, 1));
+
+        // then
+        assertThat(sut.getCartLines()).hasSize(1);
+        assertThat(sut.findCartLine(10000L)).map(CartLine::getId).contains(1000L);
+    }
+
+    @Test
+    @DisplayName("장바구니에 여러 CartLine을 한번에 추가하면 모두 추가된다")
+    void addCartLines() {
+        // given
+        Cart sut = new Cart(10L, 100L, Lists.list(new CartLine(1000L, 10000L, 1)));
+
+        // when
+        sut.addCartLines(List.of(new CartLine(2000L, 20000L, 1), new CartLine(3000L, 30000L, 2)));
+
+        // then
+        assertThat(sut.getCartLines()).extracting(CartLine::getId).containsExactly(1000L, 2000L, 3000L);
+        assertThat(sut.findCartLine(30000L)).map(CartLine::getId).contains(3000L);
+    }
+
+    @Test
+    @DisplayName("한번에 추가하는 CartLine 중 동일한 상품이 있으면 에러가 발생하고 아무것도 추가되지 않는다")
+    void addCartLinesDuplicated() {
+        // given
+        Cart sut = new Cart(10L, 100L, Lists.list(new CartLine(1000L, 10000L, 1)));
+
+        // when
+        assertThatThrownBy(() -> sut.addCartLines(List.of(new CartLine(2000L, 20000L, 1), new CartLine(3000L, 20000L, 2)))
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CartLine already exists - productId: 20000");
+
+        // then
+        assertThat(sut.getCartLines()).hasSize(1);
+        assertThat(sut.findCartLine(20000L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("같은 상품의 CartLine이 여러 개 저장되어 있어도 상품 id로 찾을 수 있고, 하나를 제거하면 남은 CartLine을 찾는다")
+    void duplicatedProductIds() {
+        // given
+        Cart sut = new Cart(10L, 100L, Lists.list(
+                new CartLine(1000L, 10000L, 1), new CartLine(2000L, 10000L, 2), new CartLine(3000L, 30000L, 1)));
+
+        // when
+        sut.addCartLine(new CartLine(4000L, 40000L, 1));
+        sut.removeCartLine(new CartLine(2000L, 10000L, 2));
+
+        // then
+        assertThat(sut.getCartLines()).extracting(CartLine::getId).containsExactlyInAnyOrder(1000L, 3000L, 4000L);
+        assertThat(sut.findCartLine(10000L)).map(CartLine::getId).contains(1000L);
+        assertThat(sut.findCartLine(30000L)).map(CartLine::getId).contains(3000L);
+        assertThat(sut.findCartLine(40000L)).map(CartLine::getId).contains(4000L);
+    }
+}
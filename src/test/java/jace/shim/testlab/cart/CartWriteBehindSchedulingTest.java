@@ -0,0 +1,94 @@
+package jace.shim.testlab.cart;
+
+import jace.shim.testlab.node.NodeLeaseManager;
+import jace.shim.testlab.node.NodeLeaseRepository;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Both scheduled tasks run: the committer every 10ms and the node lease heartbeat every 100ms
+@SpringBootTest(properties = {
+        "testlab.cart.write-behind.enabled=true",
+        "testlab.cart.write-behind.flush-interval=PT0.01S",
+        "testlab.id.node-lease.heartbeat=PT0.1S"})
+class CartWriteBehindSchedulingTest {
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private NodeLeaseManager nodeLeaseManager;
+
+    @Autowired
+    private NodeLeaseRepository nodeLeaseRepository;
+
+    @DynamicPropertySource
+    static void logPath(DynamicPropertyRegistry registry) {
+        registry.add("testlab.cart.write-behind.log-path", () -> directory.resolve("cart-mutations.log").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartWriteBehind.flushAll();
+        cartRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("커밋 스레드가 대기 중인 CartLine을 쓰느라 멈춰 있어도 nodeId 임대는 갱신된다")
+    void renewLeaseWhileCommitterIsBusy() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        cartWriteBehind.addCartLines(cart.getId(), List.of(new CartLineParam(10000L, 1), new CartLineParam(10001L, 2)));
+
+        // when
+        // The checkout holds the committer lock, so the scheduled flush blocks on it like a long drain of the log
+        boolean renewed = cartWriteBehind.checkout(cart.getId(), cartId -> {
+            sleep(300L);
+            Instant expiresAt = leaseExpiresAt();
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (System.currentTimeMillis() < deadline) {
+                if (leaseExpiresAt().isAfter(expiresAt)) {
+                    return true;
+                }
+                sleep(50L);
+            }
+            return false;
+        });
+
+        // then
+        assertThat(renewed).isTrue();
+        assertThat(cartWriteBehind.getPendingCount()).isZero();
+    }
+
+    private Instant leaseExpiresAt() {
+        return nodeLeaseRepository.findById(nodeLeaseManager.getNodeId()).orElseThrow().getExpiresAt();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package jace.shim.testlab.cart;
+
+import jace.shim.testlab.order.OrderLineResponse;
+import jace.shim.testlab.order.OrderResponse;
+import jace.shim.testlab.order.OrderService;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Flushes are triggered by the tests, the scheduled committer does not run in between
+@SpringBootTest(properties = {
+        "testlab.cart.write-behind.enabled=true",
+        "testlab.cart.write-behind.flush-interval=PT1H",
+        "testlab.cart.write-behind.batch-size=2"})
+class CartWriteBehindTest {
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartCache cartCache;
+
+    @Autowired
+    private OrderService orderService;
+
+    @DynamicPropertySource
+    static void logPath(DynamicPropertyRegistry registry) {
+        registry.add("testlab.cart.write-behind.log-path", () -> directory.resolve("cart-mutations.log").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartWriteBehind.flushAll();
+        cartRepository.deleteAll();
+        cartCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("추가한 CartLine은 DB에 쓰기 전에도 조회되고, flush하면 DB에 저장된다")
+    void addCartLineThenFlush() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+
+        // when
+        cartWriteBehind.addCartLine(cart.getId(), new CartLineParam(10000L, 1));
+        cartWriteBehind.addCartLines(cart.getId(), List.of(new CartLineParam(10001L, 2), new CartLineParam(10002L, 3)));
+
+        // then
+        assertThat(cartWriteBehind.getPendingCount()).isEqualTo(3);
+        assertThat(cartWriteBehind.getCartResponse(cart.getId()).cartLines()).extracting(CartLineResponse::productId)
+                .containsExactly(10000L, 10001L, 10002L);
+        assertThat(cartService.getCart(cart.getId()).getCartLines()).isEmpty();
+
+        cartWriteBehind.flushAll();
+        assertThat(cartWriteBehind.getPendingCount()).isZero();
+        assertThat(cartService.getCartResponse(cart.getId()).cartLines()).extracting(CartLineResponse::productId)
+                .containsExactly(10000L, 10001L, 10002L);
+    }
+
+    @Test
+    @DisplayName("DB에 쓰기 전이라도 이미 추가한 상품을 다시 추가하면 에러가 발생한다")
+    void addDuplicateProductBeforeFlush() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        cartWriteBehind.addCartLine(cart.getId(), new CartLineParam(10000L, 1));
+
+        // then
+        assertThatThrownBy(() -> cartWriteBehind.addCartLine(cart.getId(), new CartLineParam(10000L, 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(cartWriteBehind.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("존재하지 않는 장바구니에 CartLine을 추가하면 로그에 남기지 않고 에러가 발생한다")
+    void addCartLineCartNotFound() {
+        // then
+        assertThatThrownBy(() -> cartWriteBehind.addCartLine(-1L, new CartLineParam(10000L, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart not found - cartId: -1");
+        assertThat(cartWriteBehind.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("DB에 쓰기 전에 같은 상품이 다른 경로로 추가되면 충돌로 기록하고 덮어쓰지 않는다")
+    void conflictWithLineAddedElsewhere() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        cartWriteBehind.addCartLine(cart.getId(), new CartLineParam(10000L, 1));
+        cartService.addCartLine(cart.getId(), new CartLineParam(10000L, 5));
+        long conflicts = cartWriteBehind.getConflictCount();
+
+        // when
+        cartWriteBehind.flushAll();
+
+        // then
+        assertThat(cartWriteBehind.getConflictCount()).isEqualTo(conflicts + 1);
+        assertThat(cartService.getCart(cart.getId()).getCartLines()).extracting(CartLine::getQuantity)
+                .containsExactly(5);
+    }
+
+    @Test
+    @DisplayName("주문 전환은 대기 중인 CartLine을 포함하고, 이후에는 비워진 장바구니를 기준으로 추가한다")
+    void checkoutPendingCart() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        cartWriteBehind.addCartLines(cart.getId(), List.of(new CartLineParam(10000L, 1), new CartLineParam(10001L, 2)));
+
+        // when
+        OrderResponse order = cartWriteBehind.checkout(cart.getId(), orderService::createFromCart);
+
+        // then
+        assertThat(order.orderLines()).extracting(OrderLineResponse::productId).containsExactly(10000L, 10001L);
+        assertThat(cartWriteBehind.getPendingCount()).isZero();
+        assertThat(cartWriteBehind.getCartResponse(cart.getId()).cartLines()).isEmpty();
+
+        cartWriteBehind.addCartLine(cart.getId(), new CartLineParam(10000L, 3));
+        cartWriteBehind.flushAll();
+        assertThat(cartService.getCart(cart.getId()).getCartLines()).extracting(CartLine::getQuantity)
+                .containsExactly(3);
+    }
+}
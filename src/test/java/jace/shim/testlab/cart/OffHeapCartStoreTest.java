@@ -0,0 +1,223 @@
+package jace.shim.testlab.cart;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import jace.shim.testlab.utils.JsonUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapCartStoreTest {
+    private static final long TTL_NANOS = Duration.ofMinutes(5).toNanos();
+    private static final int THREADS = 8;
+    private static final Supplier<CartResponse> NOT_LOADED = () -> {
+        throw new IllegalStateException("Cart left the store");
+    };
+
+    @Test
+    @DisplayName("저장한 장바구니는 CartResponse와 같은 JSON으로 직렬화된다")
+    void serializeSnapshot() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(4096, TTL_NANOS);
+        CartResponse cart = new CartResponse(10L, 1000L,
+                List.of(new CartLineResponse(1L, 10000L, 1), new CartLineResponse(2L, 20000L, 2)));
+        sut.put(cart, sut.getInvalidationStamp(10L));
+
+        // when
+        CartSnapshot actual = sut.get(10L, NOT_LOADED);
+
+        // then
+        assertThat(actual.toResponse()).isEqualTo(cart);
+        assertThat(JsonUtils.toJson(actual)).isEqualTo(JsonUtils.toJson(cart));
+    }
+
+    @Test
+    @DisplayName("메모리 한도를 넘으면 최근에 조회되지 않은 장바구니부터 제거한다")
+    void evictUnreferencedFirst() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(1024, TTL_NANOS);
+        for (long id = 0; id < 10; id++) {
+            sut.put(cartOf(id, 1), sut.getInvalidationStamp(id));
+        }
+        sut.get(0L, NOT_LOADED);
+
+        // when
+        for (long id = 10; id < 20; id++) {
+            sut.put(cartOf(id, 1), sut.getInvalidationStamp(id));
+        }
+
+        // then
+        assertThat(sut.get(0L, NOT_LOADED)).isNotNull();
+        assertThat(sut.get(1L, NOT_LOADED)).isNull();
+        assertThat(sut.getEvictionCount()).isPositive();
+        assertThat(sut.getUsedBytes()).isLessThanOrEqualTo(sut.getCapacity());
+    }
+
+    @Test
+    @DisplayName("조회를 시작한 뒤 무효화가 있었다면 읽어온 장바구니를 저장하지 않는다")
+    void rejectPutAfterInvalidation() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(4096, TTL_NANOS);
+        long invalidationStamp = sut.getInvalidationStamp(10L);
+        sut.invalidate(10L);
+
+        // when
+        boolean stored = sut.put(cartOf(10L, 1), invalidationStamp);
+
+        // then
+        assertThat(stored).isFalse();
+        assertThat(sut.get(10L, NOT_LOADED)).isNull();
+    }
+
+    @Test
+    @DisplayName("조회하는 동안 다른 장바구니가 무효화되어도 읽어온 장바구니를 저장한다")
+    void putAfterUnrelatedInvalidation() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(4096, TTL_NANOS);
+        long invalidationStamp = sut.getInvalidationStamp(10L);
+        sut.invalidate(11L);
+
+        // when
+        boolean stored = sut.put(cartOf(10L, 1), invalidationStamp);
+
+        // then
+        assertThat(stored).isTrue();
+        assertThat(sut.get(10L, NOT_LOADED)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("조회하는 동안 모든 장바구니가 무효화되면 읽어온 장바구니를 저장하지 않는다")
+    void rejectPutAfterInvalidateAll() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(4096, TTL_NANOS);
+        long invalidationStamp = sut.getInvalidationStamp(10L);
+        sut.invalidateAll();
+
+        // when
+        boolean stored = sut.put(cartOf(10L, 1), invalidationStamp);
+
+        // then
+        assertThat(stored).isFalse();
+    }
+
+    @Test
+    @DisplayName("저장, 무효화, 제거가 섞여도 조회 결과는 항상 마지막으로 저장한 장바구니와 같다")
+    void neverReturnStaleOrCorrupt() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(64 * 1024, TTL_NANOS);
+        Map<Long, CartResponse> stored = new HashMap<>();
+        Random random = new Random(7);
+
+        // when
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(500);
+            int operation = random.nextInt(10);
+            if (operation < 3) {
+                CartResponse cart = cartOf(id, random.nextInt(random.nextInt(10) == 0 ? 200 : 8));
+                if (sut.put(cart, sut.getInvalidationStamp(id))) {
+                    stored.put(id, cart);
+                }
+            } else if (operation < 4) {
+                sut.invalidate(id);
+                stored.remove(id);
+            } else {
+                CartSnapshot actual = sut.get(id, NOT_LOADED);
+
+                // then
+                if (actual != null) {
+                    assertThat(actual.toResponse()).isEqualTo(stored.get(id));
+                }
+            }
+        }
+        assertThat(sut.getUsedBytes()).isBetween(0L, (long) sut.getCapacity());
+    }
+
+    @Test
+    @DisplayName("스냅샷을 쓰기 전에 장바구니가 무효화되면 다시 읽어온 장바구니로 직렬화한다")
+    void serializeFallbackAfterInvalidation() {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(4096, TTL_NANOS);
+        sut.put(cartOf(10L, 2), sut.getInvalidationStamp(10L));
+        CartResponse reloaded = cartOf(10L, 3);
+        CartSnapshot snapshot = sut.get(10L, () -> reloaded);
+
+        // when
+        sut.invalidate(10L);
+
+        // then
+        assertThat(JsonUtils.toJson(snapshot)).isEqualTo(JsonUtils.toJson(reloaded));
+        assertThat(snapshot.toResponse()).isEqualTo(reloaded);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 저장, 무효화, 조회해도 조회 결과는 항상 온전한 장바구니다")
+    void neverReturnCorruptConcurrently() throws Exception {
+        // given
+        OffHeapCartStore sut = new OffHeapCartStore(2L << 20, TTL_NANOS);
+
+        // when
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 50_000; i++) {
+                long id = random.nextInt(20_000);
+                int operation = random.nextInt(10);
+                if (operation < 3) {
+                    sut.put(cartOf(id, random.nextInt(40)), sut.getInvalidationStamp(id));
+                } else if (operation < 4) {
+                    sut.invalidate(id);
+                } else {
+                    CartSnapshot snapshot = sut.get(id, () -> cartOf(id, 0));
+
+                    // then
+                    if (snapshot != null) {
+                        CartResponse actual = snapshot.toResponse();
+                        assertThat(actual).isEqualTo(cartOf(id, actual.cartLines().size()));
+                        assertThat(JsonUtils.toJson(snapshot)).startsWith("{\"id\":" + id + ",");
+                    }
+                }
+            }
+        });
+        assertThat(sut.getEvictionCount()).isPositive();
+        assertThat(sut.getUsedBytes()).isBetween(0L, (long) sut.getCapacity());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static CartResponse cartOf(long id, int lineCount) {
+        List<CartLineResponse> cartLines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            cartLines.add(new CartLineResponse(id * 1000 + i, 10000L + i, i + 1));
+        }
+        return new CartResponse(id, 1000L, cartLines);
+    }
+}
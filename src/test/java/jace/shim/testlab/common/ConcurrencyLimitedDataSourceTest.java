@@ -0,0 +1,84 @@
+package jace.shim.testlab.common;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitedDataSourceTest {
+    private DataSource target;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    }
+
+    @Test
+    @DisplayName("허용 개수만큼 커넥션을 사용 중이면 다른 스레드는 대기하다가 시간이 지나면 에러가 발생한다")
+    void limitAcrossThreads() throws Exception {
+        // given
+        ConcurrencyLimitedDataSource sut = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+        Connection held = sut.getConnection();
+
+        // when
+        CompletableFuture<Connection> other = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        assertThatThrownBy(() -> other.get(1, TimeUnit.SECONDS))
+                .hasRootCauseInstanceOf(SQLTransientConnectionException.class);
+        assertThat(sut.getActiveCount()).isEqualTo(1);
+        assertThat(sut.getTimeoutCount()).isEqualTo(1);
+        held.close();
+        assertThat(sut.getActiveCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("커넥션을 가진 스레드가 커넥션을 더 열면 허가를 추가로 받지 않는다")
+    void reentrantWithinThread() throws Exception {
+        // given
+        ConcurrencyLimitedDataSource sut = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        // when
+        Connection outer = sut.getConnection();
+        Connection inner = sut.getConnection();
+        inner.close();
+        inner.close();
+
+        // then
+        assertThat(sut.getActiveCount()).isEqualTo(1);
+        outer.close();
+        assertThat(sut.getActiveCount()).isZero();
+        assertThat(outer.isClosed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("커넥션을 얻지 못하면 받은 허가를 반납한다")
+    void releaseOnFailure() throws Exception {
+        // given
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        ConcurrencyLimitedDataSource sut = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        // when
+        assertThatThrownBy(sut::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        // then
+        assertThat(sut.getActiveCount()).isZero();
+    }
+}
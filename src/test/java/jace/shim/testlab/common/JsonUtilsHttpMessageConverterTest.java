@@ -0,0 +1,45 @@
+package jace.shim.testlab.common;
+
+import jace.shim.testlab.cart.Cart;
+import jace.shim.testlab.cart.CartLineResponse;
+import jace.shim.testlab.cart.CartResponse;
+import jace.shim.testlab.cart.CartView;
+import jace.shim.testlab.utils.JsonUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonUtilsHttpMessageConverterTest {
+    private final JsonUtilsHttpMessageConverter sut = new JsonUtilsHttpMessageConverter(CartView.class);
+
+    @Test
+    @DisplayName("지정한 타입은 JsonUtils로 응답 본문에 직접 쓰고, 결과는 toJson과 같다")
+    void writeToBody() throws Exception {
+        // given
+        CartResponse cart = new CartResponse(10L, 1000L, List.of(new CartLineResponse(1L, 10000L, 1)));
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // when
+        sut.write(cart, MediaType.APPLICATION_JSON, outputMessage);
+
+        // then
+        assertThat(outputMessage.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo(JsonUtils.toJson(cart));
+        assertThat(outputMessage.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    @DisplayName("지정하지 않은 타입과 JSON이 아닌 미디어 타입은 쓰지 않고, 요청 본문은 읽지 않는다")
+    void supportsOnlyGivenTypesForWriting() {
+        // then
+        assertThat(sut.canWrite(CartResponse.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(sut.canWrite(Cart.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(sut.canWrite(CartResponse.class, MediaType.valueOf("application/cbor"))).isFalse();
+        assertThat(sut.canRead(CartResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+}
@@ -0,0 +1,150 @@
+package jace.shim.testlab.node;
+
+import jace.shim.testlab.utils.Snowflake;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "testlab.id.node-lease.enabled=false")
+class NodeLeaseManagerTest {
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final Instant NOW = Instant.parse("2024-10-01T00:00:00Z");
+    private static final long CLOCK_TOLERANCE_MILLIS = 10L;
+
+    @Autowired
+    private NodeLeaseRepository nodeLeaseRepository;
+
+    private final List<Long> leased = new ArrayList<>();
+    private final List<Snowflake> generators = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodeLeaseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("여러 인스턴스가 nodeId를 임대하면 서로 다른 nodeId를 받는다")
+    void claimDistinctNodeIds() {
+        // given
+        NodeLeaseManager first = manager(2, NOW);
+        NodeLeaseManager second = manager(2, NOW);
+
+        // when
+        first.claim();
+        second.claim();
+
+        // then
+        assertThat(leased).containsExactlyInAnyOrder(0L, 1L);
+        assertThat(first.getNodeId()).isNotEqualTo(second.getNodeId());
+    }
+
+    @Test
+    @DisplayName("임대 가능한 nodeId가 없으면 에러가 발생한다")
+    void noFreeNodeId() {
+        // given
+        manager(1, NOW).claim();
+
+        // verify
+        assertThatThrownBy(() -> manager(1, NOW).claim()
+        ).isInstanceOf(IllegalStateException.class)
+                .hasMessage("No free nodeId left - nodeIdCount: 1");
+    }
+
+    @Test
+    @DisplayName("만료된 임대는 다른 인스턴스가 넘겨받는다")
+    void takeOverExpired() {
+        // given
+        NodeLeaseManager expired = manager(1, NOW);
+        expired.claim();
+
+        // when
+        NodeLeaseManager sut = manager(1, NOW.plus(TTL).plusMillis(1));
+        long actual = sut.claim();
+
+        // then
+        assertThat(actual).isEqualTo(0L);
+        assertThat(nodeLeaseRepository.findById(0L).get().getOwner()).isEqualTo(sut.getOwner());
+    }
+
+    @Test
+    @DisplayName("반납하면 id 발급을 멈추고, 마지막 발급 시각에 허용 오차를 더한 시각 이후에만 다른 인스턴스가 임대할 수 있다")
+    void release() {
+        // given
+        NodeLeaseManager released = manager(1, Clock.systemUTC());
+        released.claim();
+        Snowflake generator = generators.get(0);
+        long[] issued = generator.nextIds(4_097);
+        long lastIssuedAt = generator.parse(issued[issued.length - 1])[0];
+
+        // when
+        released.release();
+
+        // then
+        assertThat(released.getNodeId()).isNull();
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+        Instant takeOverAt = Instant.ofEpochMilli(lastIssuedAt + CLOCK_TOLERANCE_MILLIS);
+        assertThatThrownBy(() -> manager(1, takeOverAt).claim()).isInstanceOf(IllegalStateException.class);
+        assertThat(manager(1, takeOverAt.plusMillis(1)).claim()).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("반납한 nodeId를 다시 임대하면 이전에 발급한 id 이후부터 발급한다")
+    void releaseThenClaimAgain() {
+        // given
+        NodeLeaseManager sut = manager(1, Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1)));
+        sut.claim();
+        long[] issued = generators.get(0).nextIds(4_097);
+        sut.release();
+
+        // when
+        sut.claim();
+        long actual = generators.get(1).nextId();
+
+        // then
+        assertThat(actual).isGreaterThan(issued[issued.length - 1]);
+    }
+
+    @Test
+    @DisplayName("임대를 잃은 인스턴스는 heartbeat에서 새로운 nodeId를 임대한다")
+    void renewLostLease() {
+        // given
+        NodeLeaseManager sut = manager(2, NOW);
+        long lost = sut.claim();
+        nodeLeaseRepository.takeOverExpired(lost, "other", NOW.plus(TTL.multipliedBy(2)), NOW.plus(TTL).plusMillis(1));
+
+        // when
+        sut.renew();
+
+        // then
+        assertThat(sut.getNodeId()).isNotNull().isNotEqualTo(lost);
+        assertThatThrownBy(generators.get(0)::nextId).isInstanceOf(IllegalStateException.class)
+                .hasMessage("Snowflake is fenced - nodeId: " + lost);
+    }
+
+    private NodeLeaseManager manager(long nodeIdCount, Instant now) {
+        return manager(nodeIdCount, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private NodeLeaseManager manager(long nodeIdCount, Clock clock) {
+        return new NodeLeaseManager(nodeLeaseRepository, nodeIdCount, TTL, CLOCK_TOLERANCE_MILLIS, nodeId -> {
+            Snowflake generator = new Snowflake(nodeId, Snowflake.DEFAULT_CUSTOM_EPOCH, Snowflake.Mode.LOCK_FREE,
+                    CLOCK_TOLERANCE_MILLIS);
+            leased.add(nodeId);
+            generators.add(generator);
+            return generator;
+        }, generator -> {
+        }, clock);
+    }
+}
@@ -0,0 +1,85 @@
+package jace.shim.testlab.order;
+
+import jace.shim.testlab.cart.Cart;
+import jace.shim.testlab.cart.CartLineParam;
+import jace.shim.testlab.cart.CartRepository;
+import jace.shim.testlab.cart.CartService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OrderCheckoutTest {
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        cartRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("장바구니로 주문하면 모든 CartLine이 같은 순서로 주문에 복사되고 장바구니는 비워진다")
+    void createFromCart() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+        List<CartLineParam> params = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            params.add(new CartLineParam(10000L + i, i + 1));
+        }
+        cartService.addCartLines(cart.getId(), params);
+        cartService.getCartResponse(cart.getId());
+
+        // when
+        OrderResponse actual = orderService.createFromCart(cart.getId());
+
+        // then
+        assertThat(actual.userId()).isEqualTo(1000L);
+        assertThat(actual.orderLines()).extracting(OrderLineResponse::productId)
+                .containsExactlyElementsOf(params.stream().map(CartLineParam::getProductId).toList());
+        assertThat(actual.orderLines()).extracting(OrderLineResponse::quantity)
+                .containsExactlyElementsOf(params.stream().map(CartLineParam::getQuantity).toList());
+        assertThat(actual.orderLines()).extracting(OrderLineResponse::id).doesNotHaveDuplicates().isSorted();
+        assertThat(orderService.getOrderResponse(actual.id())).isEqualTo(actual);
+        assertThat(cartService.getCartResponse(cart.getId()).cartLines()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("비어있는 장바구니로 주문하면 에러가 발생하고 주문은 생성되지 않는다")
+    void createFromEmptyCart() {
+        // given
+        Cart cart = cartService.createCart(1000L);
+
+        // then
+        assertThatThrownBy(() -> orderService.createFromCart(cart.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart is empty - cartId: " + cart.getId());
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("존재하지 않는 장바구니로 주문하면 에러가 발생한다")
+    void createFromCartNotFound() {
+        assertThatThrownBy(() -> orderService.createFromCart(20L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart not found - cartId: 20");
+    }
+}
@@ -0,0 +1,142 @@
+package jace.shim.testlab.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jace.shim.testlab.utils.JsonUtils;
+import jace.shim.testlab.utils.NumberIdGenerator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderControllerTest {
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("사용자 id로 조회하면 해당 사용자의 주문을 OrderLine 개수와 함께 id 순서로 페이지 단위로 리턴한다")
+    public void getOrdersOfUser() throws Exception {
+        orderRepository.save(new Order(10L, 100L, new ArrayList<>(List.of(new OrderLine(1000L, 10000L, 1)))));
+        orderRepository.save(new Order(20L, 200L, new ArrayList<>()));
+        orderRepository.save(new Order(30L, 100L, new ArrayList<>()));
+        orderRepository.save(new Order(40L, 100L, new ArrayList<>()));
+
+        MvcResult first = mockMvc.perform(get("/orders")
+                        .param("userId", "100")
+                        .param("size", "2"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode firstPage = JsonUtils.fromJson(first.getResponse().getContentAsString());
+
+        assertThat(firstPage.get("content")).hasSize(2);
+        assertThat(firstPage.get("content").get(0).get("id").asLong()).isEqualTo(10L);
+        assertThat(firstPage.get("content").get(0).get("lineCount").asInt()).isEqualTo(1);
+        assertThat(firstPage.get("content").get(1).get("id").asLong()).isEqualTo(30L);
+        assertThat(firstPage.get("nextCursor").asLong()).isEqualTo(30L);
+
+        MvcResult second = mockMvc.perform(get("/orders")
+                        .param("userId", "100")
+                        .param("after", firstPage.get("nextCursor").asText())
+                        .param("size", "2"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode secondPage = JsonUtils.fromJson(second.getResponse().getContentAsString());
+
+        assertThat(secondPage.get("content")).hasSize(1);
+        assertThat(secondPage.get("content").get(0).get("id").asLong()).isEqualTo(40L);
+        assertThat(secondPage.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("사용자 id로 조회시 size가 범위를 벗어나면 에러가 발생한다")
+    public void getOrdersOfUserWithInvalidSize() throws Exception {
+        mockMvc.perform(get("/orders")
+                        .param("userId", "100")
+                        .param("size", "0"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    @DisplayName("사용자 id와 생성 시각 구간을 함께 넘기면 어느 조회도 선택하지 않고 400을 리턴한다")
+    public void getOrdersWithMixedParams() throws Exception {
+        mockMvc.perform(get("/orders")
+                        .param("userId", "100")
+                        .param("from", "2024-10-01T00:00:00+09:00")
+                        .param("to", "2024-10-02T00:00:00+09:00"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/orders")
+                        .param("userId", "100")
+                        .param("from", "2024-10-01T00:00:00+09:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("주문을 내보내면 조건에 맞는 주문을 OrderLine과 함께 한 줄에 하나씩 id 순서로 리턴한다")
+    public void exportOrders() throws Exception {
+        final Instant givenFrom = Instant.parse("2024-10-01T00:00:00Z");
+        final Long firstId = NumberIdGenerator.minIdAt(givenFrom) + 1;
+        final Long otherUserId = NumberIdGenerator.minIdAt(givenFrom) + 2;
+        final Long secondId = NumberIdGenerator.minIdAt(givenFrom.plusSeconds(1));
+        final Long outOfRangeId = NumberIdGenerator.minIdAt(givenFrom.plusSeconds(2));
+        orderRepository.save(new Order(firstId, 100L, new ArrayList<>(List.of(
+                new OrderLine(1000L, 10000L, 1), new OrderLine(1001L, 10001L, 2)))));
+        orderRepository.save(new Order(otherUserId, 200L, new ArrayList<>()));
+        orderRepository.save(new Order(secondId, 100L, new ArrayList<>()));
+        orderRepository.save(new Order(outOfRangeId, 100L, new ArrayList<>()));
+
+        MvcResult result = mockMvc.perform(get("/orders/export")
+                        .param("from", "2024-10-01T09:00:00+09:00")
+                        .param("to", "2024-10-01T09:00:01+09:00")
+                        .param("userId", "100"))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        String content = result.getResponse().getContentAsString();
+        assertThat(content).endsWith("\n");
+        String[] lines = content.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":" + firstId + ",\"userId\":100,");
+        assertThat(lines[1]).isEqualTo("{\"id\":" + secondId + ",\"userId\":100,\"orderLines\":[]}");
+        JsonNode first = JsonUtils.fromJson(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(firstId);
+        assertThat(first.get("orderLines")).hasSize(2);
+        assertThat(first.get("orderLines").get(1).get("productId").asLong()).isEqualTo(10001L);
+        JsonNode second = JsonUtils.fromJson(lines[1]);
+        assertThat(second.get("id").asLong()).isEqualTo(secondId);
+        assertThat(second.get("orderLines")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("주문을 내보낼 때 from이 to보다 나중이면 스트리밍을 시작하지 않고 에러가 발생한다")
+    public void exportOrdersWithInvalidRange() throws Exception {
+        mockMvc.perform(get("/orders/export")
+                        .param("from", "2024-10-01T09:00:01+09:00")
+                        .param("to", "2024-10-01T09:00:00+09:00"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isInternalServerError());
+    }
+}
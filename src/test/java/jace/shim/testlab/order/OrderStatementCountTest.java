@@ -0,0 +1,114 @@
+package jace.shim.testlab.order;
+
+import jace.shim.testlab.utils.NumberIdGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The node lease heartbeat is disabled so that only the statements of the operation under test are counted
+@SpringBootTest(properties = "testlab.id.node-lease.enabled=false")
+class OrderStatementCountTest {
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("주문을 생성하면 조회 없이 INSERT 한번만 실행한다")
+    void createOrder() {
+        // given
+        statistics.clear();
+
+        // when
+        orderService.createCart(1000L);
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("OrderLine이 있는 주문을 저장하면 조회 없이 주문 INSERT와 한번의 OrderLine 배치 INSERT만 실행한다")
+    void saveOrderWithLines() {
+        // given
+        List<OrderLine> orderLines = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orderLines.add(new OrderLine(NumberIdGenerator.generate(), 10000L + i, i + 1));
+        }
+        Order order = new Order(NumberIdGenerator.generate(), 1000L, orderLines);
+        statistics.clear();
+
+        // when
+        orderRepository.save(order);
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(4);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("주문에 OrderLine을 추가하면 주문 조회, OrderLine INSERT, 주문 버전 UPDATE만 실행한다")
+    void addOrderLine() {
+        // given
+        Order order = orderService.createCart(1000L);
+        statistics.clear();
+
+        // when
+        orderService.addOrderLine(order.getId(), new OrderLineParam(10000L, 1));
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("주문 응답을 조회하면 엔티티를 읽지 않고 쿼리를 한번만 실행한다")
+    void getOrderResponse() {
+        // given
+        Order order = orderService.createCart(1000L);
+        orderService.addOrderLine(order.getId(), new OrderLineParam(10000L, 1));
+        orderService.addOrderLine(order.getId(), new OrderLineParam(20000L, 2));
+        statistics.clear();
+
+        // when
+        OrderResponse actual = orderService.getOrderResponse(order.getId());
+
+        // then
+        assertThat(actual.orderLines()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
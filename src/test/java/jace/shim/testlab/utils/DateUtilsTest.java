@@ -0,0 +1,123 @@
+package jace.shim.testlab.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DateUtilsTest {
+    private static final int SAMPLES = 100_000;
+    private static final List<ZoneId> ZONES = List.of(
+        ZoneId.of("Asia/Seoul"), ZoneOffset.UTC, ZoneId.of("America/St_Johns"), ZoneId.of("Asia/Kathmandu"),
+        ZoneOffset.ofHoursMinutes(0, -30), ZoneOffset.ofHoursMinutesSeconds(5, 30, 15), ZoneOffset.MAX, ZoneOffset.MIN);
+    private static final long MIN_SECOND = LocalDateTime.of(-10, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_SECOND = LocalDateTime.of(10010, 12, 31, 23, 59).toEpochSecond(ZoneOffset.UTC);
+    private static final String MUTATIONS = "0123456789-+:TZ x";
+
+    private final Random random = new Random(20241001L);
+
+    @Test
+    @DisplayName("고정 포맷의 문자열 변환 결과는 java.time 포맷터의 결과와 같다")
+    void formatEquivalence() {
+        for (int i = 0; i < SAMPLES; i++) {
+            // given
+            ZonedDateTime dateTime = randomDateTime();
+
+            // when & then
+            assertThat(DateUtils.parseDefaultDateFormat(dateTime))
+                .isEqualTo(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT)));
+            assertThat(DateUtils.parseKstDateFormat(dateTime))
+                .isEqualTo(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.KST_DATE_FORMAT)));
+            assertThat(DateUtils.parseDefaultDayFormat(dateTime))
+                .isEqualTo(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DAY_FORMAT)));
+        }
+    }
+
+    @Test
+    @DisplayName("고정 포맷의 문자열 파싱 결과는 변형된 입력을 포함해 java.time 파서의 결과와 같다")
+    void parseEquivalence() {
+        for (int i = 0; i < SAMPLES; i++) {
+            // given
+            ZonedDateTime dateTime = randomDateTime();
+            String defaultDate = mutate(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT)));
+            String kstDate = mutate(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.KST_DATE_FORMAT)));
+            String day = mutate(dateTime.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DAY_FORMAT)));
+
+            // when & then
+            assertThat(outcome(() -> DateUtils.of(defaultDate)))
+                .isEqualTo(outcome(() -> ZonedDateTime.parse(defaultDate, DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT))));
+            assertThat(outcome(() -> DateUtils.of(kstDate, DateUtils.KST_DATE_FORMAT)))
+                .isEqualTo(outcome(() -> ZonedDateTime.of(
+                    LocalDateTime.parse(kstDate, DateTimeFormatter.ofPattern(DateUtils.KST_DATE_FORMAT)), ZoneId.systemDefault())));
+            assertThat(outcome(() -> DateUtils.parseDateAtStartOfDay(day)))
+                .isEqualTo(outcome(() -> LocalDate.parse(day, DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DAY_FORMAT))
+                    .atStartOfDay(ZoneId.systemDefault())));
+        }
+    }
+
+    @Test
+    @DisplayName("JsonUtils는 LocalDateTime과 ZonedDateTime을 KST 포맷 문자열로 직렬화한다")
+    void jsonSerialization() {
+        // given
+        LocalDateTime localDateTime = LocalDateTime.of(2024, 10, 1, 9, 5, 3, 999_999_999);
+        ZonedDateTime zonedDateTime = ZonedDateTime.of(localDateTime, ZoneId.of("Asia/Seoul"));
+
+        // when & then
+        assertThat(JsonUtils.toJson(localDateTime)).isEqualTo("\"2024-10-01 09:05:03\"");
+        assertThat(JsonUtils.toJson(zonedDateTime)).isEqualTo("\"2024-10-01 09:05:03\"");
+        assertThat(JsonUtils.toJson(LocalDateTime.of(10000, 1, 1, 0, 0)))
+            .isEqualTo("\"" + LocalDateTime.of(10000, 1, 1, 0, 0).format(DateTimeFormatter.ofPattern(DateUtils.KST_DATE_FORMAT)) + "\"");
+    }
+
+    @Test
+    @DisplayName("상수 패턴은 미리 만든 formatter를 쓰고, 그 밖의 패턴이 몰려도 캐시는 MAX_CACHED_PATTERNS를 넘지 않는다")
+    void formatterCacheIsBounded() {
+        // given
+        ZonedDateTime dateTime = ZonedDateTime.of(2024, 10, 1, 9, 5, 3, 0, ZoneId.of("Asia/Seoul"));
+
+        // when
+        for (int i = 0; i < DateUtils.MAX_CACHED_PATTERNS * 4; i++) {
+            assertThat(DateUtils.parseDateFormat(dateTime, "yyyy-MM-dd '" + i + "'")).isEqualTo("2024-10-01 " + i);
+        }
+
+        // then
+        assertThat(DateUtils.formatterOf(DateUtils.KST_DATE_FORMAT)).isSameAs(DateUtils.KST_DATE_FORMATTER);
+        assertThat(DateUtils.formatterOf(DateUtils.DEFAULT_DAY_FORMAT)).isSameAs(DateUtils.DEFAULT_DAY_FORMATTER);
+        assertThat(DateUtils.cachedPatternCount()).isLessThanOrEqualTo(DateUtils.MAX_CACHED_PATTERNS);
+    }
+
+    private ZonedDateTime randomDateTime() {
+        long second = MIN_SECOND + (long) (random.nextDouble() * (MAX_SECOND - MIN_SECOND));
+        Instant instant = Instant.ofEpochSecond(second, random.nextInt(1_000_000_000));
+        return instant.atZone(ZONES.get(random.nextInt(ZONES.size())));
+    }
+
+    // Replaces one character half of the time so both the fast path and its fallback see malformed input
+    private String mutate(String text) {
+        if (random.nextBoolean()) {
+            return text;
+        }
+        char[] chars = text.toCharArray();
+        chars[random.nextInt(chars.length)] = MUTATIONS.charAt(random.nextInt(MUTATIONS.length()));
+        return new String(chars);
+    }
+
+    private static Object outcome(Supplier<?> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package jace.shim.testlab.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jace.shim.testlab.cart.Cart;
+import jace.shim.testlab.cart.CartLine;
+import jace.shim.testlab.order.OrderLineResponse;
+import jace.shim.testlab.order.OrderResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonUtilsTest {
+    private static final Map<String, Object> PAYLOAD = Map.of("id", 10L, "name", "cart");
+
+    @Test
+    @DisplayName("OutputStream에 직접 쓴 결과는 toJson 결과와 같고 스트림을 닫지 않는다")
+    void writeJsonToOutputStream() {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AtomicBoolean closed = new AtomicBoolean();
+        FilterOutputStream outputStream = new FilterOutputStream(bytes) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        // when
+        JsonUtils.writeJson(PAYLOAD, outputStream);
+
+        // then
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo(JsonUtils.toJson(PAYLOAD));
+        assertThat(closed.get()).isFalse();
+    }
+
+    @Test
+    @DisplayName("공유 mapper로 OutputStream에 쓰면 Jackson 기본 설정대로 스트림을 닫는다")
+    void mapperClosesOutputStream() throws Exception {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        FilterOutputStream outputStream = new FilterOutputStream(new ByteArrayOutputStream()) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        // when
+        JsonUtils.getMapper().writeValue(outputStream, PAYLOAD);
+
+        // then
+        assertThat(closed.get()).isTrue();
+    }
+
+    @Test
+    @DisplayName("채널에 직접 쓴 결과는 toJson 결과와 같다")
+    void writeJsonToChannel() {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // when
+        JsonUtils.writeJson(PAYLOAD, Channels.newChannel(bytes));
+
+        // then
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo(JsonUtils.toJson(PAYLOAD));
+    }
+
+    @Test
+    @DisplayName("ByteBuffer에 직접 쓰면 현재 위치부터 쓰고 쓴 길이를 리턴한다")
+    void writeJsonToByteBuffer() {
+        // given
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        buffer.position(3);
+
+        // when
+        int length = JsonUtils.writeJson(PAYLOAD, buffer);
+
+        // then
+        byte[] written = new byte[length];
+        buffer.flip().position(3);
+        buffer.get(written);
+        assertThat(new String(written, StandardCharsets.UTF_8)).isEqualTo(JsonUtils.toJson(PAYLOAD));
+    }
+
+    @Test
+    @DisplayName("ByteBuffer 공간이 부족하면 에러가 발생하고 위치는 그대로 유지된다")
+    void writeJsonToByteBufferOverflow() {
+        // given
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+
+        // when & then
+        assertThatThrownBy(() -> JsonUtils.writeJson(PAYLOAD, buffer))
+            .isInstanceOf(BufferOverflowException.class);
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    @DisplayName("JSON Pointer로 지정한 값만 추출하고 없는 경로는 결과에 포함하지 않는다")
+    void extract() {
+        // given
+        String json = """
+            {"event":"order.created","skip":{"event":"nested","items":[1,2,3]},
+             "data":{"order":{"id":123,"lines":[{"productId":10},{"productId":20}]},"note":null},
+             "tags":["a","b"]}
+            """;
+
+        // when
+        Map<String, JsonNode> actual = JsonUtils.extract(json,
+            List.of("/event", "/data/order/id", "/data/order/lines/1", "/tags/0", "/data/note", "/missing/path"));
+
+        // then
+        assertThat(actual).hasSize(5);
+        assertThat(actual.get("/event").asText()).isEqualTo("order.created");
+        assertThat(actual.get("/data/order/id").asLong()).isEqualTo(123L);
+        assertThat(actual.get("/data/order/lines/1").get("productId").asLong()).isEqualTo(20L);
+        assertThat(actual.get("/tags/0").asText()).isEqualTo("a");
+        assertThat(actual.get("/data/note").isNull()).isTrue();
+        assertThat(actual).doesNotContainKey("/missing/path");
+    }
+
+    @Test
+    @DisplayName("추출 결과는 전체 트리에서 같은 경로로 조회한 값과 같다")
+    void extractMatchesTree() {
+        // given
+        String json = JsonUtils.toJson(Map.of("a", Map.of("b", List.of(Map.of("c", 1), Map.of("c", 2))), "d", "e"));
+        JsonNode tree = JsonUtils.fromJson(json);
+        List<String> pointers = List.of("/a/b/0/c", "/a/b/1", "/d", "");
+
+        // when
+        Map<String, JsonNode> actual = JsonUtils.extract(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), pointers);
+
+        // then
+        for (String pointer : pointers) {
+            assertThat(actual.get(pointer)).isEqualTo(tree.at(pointer));
+        }
+    }
+
+    @Test
+    @DisplayName("배열 스트림은 필요한 만큼만 읽고, 스트림을 닫으면 입력도 닫는다")
+    void streamJsonArrayLazily() {
+        // given
+        TrackingInputStream inputStream = new TrackingInputStream(JsonUtils.toJson(LongStream.range(0, 100_000).boxed().toList()));
+
+        // when
+        Long first;
+        try (Stream<Long> values = JsonUtils.streamJsonArray(inputStream, Long.class)) {
+            first = values.findFirst().orElseThrow();
+        }
+
+        // then
+        assertThat(first).isZero();
+        assertThat(inputStream.read).isLessThan(inputStream.length / 10);
+        assertThat(inputStream.closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("배열 스트림은 모든 원소를 순서대로 돌려준다")
+    void streamJsonArray() {
+        // given
+        TrackingInputStream inputStream = new TrackingInputStream("[{\"id\":1},{\"id\":2,\"tags\":[\"a\"]},{}]");
+
+        // when
+        List<JsonNode> actual;
+        try (Stream<JsonNode> values = JsonUtils.streamJsonArray(inputStream, JsonNode.class)) {
+            actual = values.toList();
+        }
+
+        // then
+        assertThat(actual).containsExactly(JsonUtils.fromJson("{\"id\":1}"),
+                JsonUtils.fromJson("{\"id\":2,\"tags\":[\"a\"]}"), JsonUtils.fromJson("{}"));
+    }
+
+    @Test
+    @DisplayName("최상위 값이 배열이 아니면 에러가 발생하고 입력을 닫는다")
+    void streamJsonArrayNotArray() {
+        // given
+        TrackingInputStream inputStream = new TrackingInputStream("{\"id\":1}");
+
+        // then
+        assertThatThrownBy(() -> JsonUtils.streamJsonArray(inputStream, JsonNode.class)
+        ).isInstanceOf(JsonUtils.JsonDecodeException.class);
+        assertThat(inputStream.closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("배열을 batchSize씩 나누어 넘기고, 마지막 남은 원소도 넘긴 뒤 넘긴 개수를 리턴한다")
+    void readJsonArrayInBatches() {
+        // given
+        TrackingInputStream inputStream = new TrackingInputStream("[1,2,3,4,5,6,7]");
+        List<List<Long>> batches = new ArrayList<>();
+
+        // when
+        long actual = JsonUtils.readJsonArrayInBatches(inputStream, Long.class, 3, batch -> batches.add(List.copyOf(batch)));
+
+        // then
+        assertThat(actual).isEqualTo(7L);
+        assertThat(batches).containsExactly(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L), List.of(7L));
+        assertThat(inputStream.closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("batchHandler가 false를 리턴하면 나머지를 읽지 않고 입력을 닫는다")
+    void readJsonArrayInBatchesStopEarly() {
+        // given
+        TrackingInputStream inputStream = new TrackingInputStream("[1,2,3,4,5,6,7]");
+        List<List<Long>> batches = new ArrayList<>();
+
+        // when
+        long actual = JsonUtils.readJsonArrayInBatches(inputStream, Long.class, 2, batch -> {
+            batches.add(List.copyOf(batch));
+            return false;
+        });
+
+        // then
+        assertThat(actual).isEqualTo(2L);
+        assertThat(batches).containsExactly(List.of(1L, 2L));
+        assertThat(inputStream.closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("빈 배열은 batchHandler를 호출하지 않고 0을 리턴한다")
+    void readEmptyJsonArrayInBatches() {
+        // when
+        long actual = JsonUtils.readJsonArrayInBatches(new TrackingInputStream("[]"), Long.class, 2, batch -> {
+            throw new AssertionError("no batch expected");
+        });
+
+        // then
+        assertThat(actual).isZero();
+    }
+
+    @Test
+    @DisplayName("캐시에 있는 타입은 hit, 처음 보는 타입은 miss로 센다")
+    void boundedCacheHitsAndMisses() {
+        // given
+        JsonUtils.BoundedCache<String, String> sut = new JsonUtils.BoundedCache<>(2);
+        long hits = JsonUtils.getCacheHitCount();
+        long misses = JsonUtils.getCacheMissCount();
+
+        // when
+        String first = sut.get("a", String::toUpperCase);
+        String second = sut.get("a", key -> {
+            throw new AssertionError("cached value expected");
+        });
+        sut.get("b", String::toUpperCase);
+
+        // then
+        assertThat(first).isEqualTo("A");
+        assertThat(second).isEqualTo("A");
+        assertThat(JsonUtils.getCacheHitCount() - hits).isEqualTo(1L);
+        assertThat(JsonUtils.getCacheMissCount() - misses).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("한 번씩만 쓰인 타입이 몰려도 캐시는 maxSize를 넘지 않고, 이후의 타입도 캐시한다")
+    void boundedCacheEvicts() {
+        // given
+        JsonUtils.BoundedCache<String, String> sut = new JsonUtils.BoundedCache<>(8);
+        for (int i = 0; i < 100; i++) {
+            sut.get("one-off-" + i, String::toUpperCase);
+        }
+        long hits = JsonUtils.getCacheHitCount();
+
+        // when
+        sut.get("hot", String::toUpperCase);
+        sut.get("hot", String::toUpperCase);
+
+        // then
+        assertThat(sut.size()).isLessThanOrEqualTo(8L);
+        assertThat(JsonUtils.getCacheHitCount() - hits).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("카트를 CBOR로 인코딩하면 JSON보다 작고, 다시 디코딩하면 같은 카트가 된다")
+    void cartCborSmallerThanJson() {
+        // given
+        List<CartLine> cartLines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cartLines.add(new CartLine(1_000_000L + i, 10_000L + i, i % 10 + 1));
+        }
+        Cart cart = new Cart(10L, 1000L, cartLines);
+
+        // when
+        byte[] json = JsonUtils.toJsonByte(cart);
+        byte[] cbor = JsonUtils.toCbor(cart);
+
+        // then
+        assertThat(cbor.length).as("json: %d bytes, cbor: %d bytes", json.length, cbor.length)
+                .isLessThan(json.length);
+        assertThat(JsonUtils.toJson(JsonUtils.fromCbor(cbor, Cart.class))).isEqualTo(JsonUtils.toJson(cart));
+    }
+
+    @Test
+    @DisplayName("주문을 CBOR로 인코딩하면 JSON보다 작고, 다시 디코딩하면 같은 주문이 된다")
+    void orderCborSmallerThanJson() {
+        // given
+        List<OrderLineResponse> orderLines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orderLines.add(new OrderLineResponse(2_000_000L + i, 10_000L + i, i % 10 + 1));
+        }
+        OrderResponse order = new OrderResponse(20L, 1000L, orderLines);
+
+        // when
+        byte[] json = JsonUtils.toJsonByte(order);
+        byte[] cbor = JsonUtils.toCbor(order);
+
+        // then
+        assertThat(cbor.length).as("json: %d bytes, cbor: %d bytes", json.length, cbor.length)
+                .isLessThan(json.length);
+        assertThat(JsonUtils.fromCbor(cbor, OrderResponse.class)).isEqualTo(order);
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+        private final int length;
+        private int read;
+        private boolean closed;
+
+        private TrackingInputStream(String json) {
+            super(json.getBytes(StandardCharsets.UTF_8));
+            this.length = buf.length;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            read += Math.max(n, 0);
+            return n;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package jace.shim.testlab.utils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeTest {
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+    private static final long EPOCH = 1420070400000L;
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("여러 스레드에서 동시에 발급한 id는 모두 유일하다")
+    void uniqueAcrossThreads(Snowflake.Mode mode) throws Exception {
+        // given
+        Snowflake sut = new Snowflake(1L, 1420070400000L, mode);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // when
+        runConcurrently(() -> {
+            for (int i = 0; i < IDS_PER_THREAD; i++) {
+                ids.add(sut.nextId());
+            }
+        });
+
+        // then
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("발급한 id는 parse 시 nodeId와 발급 시각을 돌려준다")
+    void parse(Snowflake.Mode mode) {
+        // given
+        Snowflake sut = new Snowflake(7L, 1420070400000L, mode);
+        long before = System.currentTimeMillis();
+
+        // when
+        long[] actual = sut.parse(sut.nextId());
+
+        // then
+        assertThat(actual[0]).isBetween(before - 1, System.currentTimeMillis() + 1);
+        assertThat(actual[1]).isEqualTo(7L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("한 번에 여러 id를 예약하면 시퀀스가 소진되어도 다음 밀리초로 넘어가며 증가하는 id를 돌려준다")
+    void nextIds(Snowflake.Mode mode) {
+        // given
+        Snowflake sut = new Snowflake(1L, 1420070400000L, mode);
+        sut.nextId();
+
+        // when
+        long[] actual = sut.nextIds(10_000);
+
+        // then
+        assertThat(actual).hasSize(10_000).doesNotHaveDuplicates().isSorted();
+        assertThat(sut.parse(actual[9_999])[0]).isGreaterThan(sut.parse(actual[0])[0]);
+        assertThat(sut.nextId()).isGreaterThan(actual[9_999]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("여러 스레드에서 단건 발급과 일괄 예약을 섞어도 id는 모두 유일하다")
+    void nextIdsUniqueAcrossThreads(Snowflake.Mode mode) throws Exception {
+        // given
+        Snowflake sut = new Snowflake(1L, 1420070400000L, mode);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // when
+        runConcurrently(() -> {
+            for (int i = 0; i < IDS_PER_THREAD / 10; i++) {
+                ids.add(sut.nextId());
+                for (long id : sut.nextIds(9)) {
+                    ids.add(id);
+                }
+            }
+        });
+
+        // then
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("예약할 id 개수가 0 이하이면 에러가 발생한다")
+    void nextIdsNotPositive(Snowflake.Mode mode) {
+        Snowflake sut = new Snowflake(1L, 1420070400000L, mode);
+
+        assertThatThrownBy(() -> sut.nextIds(0)
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Count must be positive - count: 0");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("허용 범위 이내로 시계가 뒤로 가면 에러 없이 마지막 시각으로 계속 발급한다")
+    void clockBackwardWithinTolerance(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        long first = sut.nextId();
+
+        // when
+        clock.addAndGet(-5L);
+        long actual = sut.nextId();
+        sut.nextId();
+
+        // then
+        assertThat(actual).isGreaterThan(first);
+        assertThat(sut.parse(actual)[0]).isEqualTo(EPOCH + 1_000L);
+        assertThat(sut.getClockBackwardCount()).isEqualTo(1L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("허용 범위를 넘어 시계가 뒤로 가면 에러가 발생한다")
+    void clockBackwardBeyondTolerance(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        sut.nextId();
+
+        // when
+        clock.addAndGet(-11L);
+
+        // then
+        assertThatThrownBy(sut::nextId
+        ).isInstanceOf(IllegalStateException.class)
+                .hasMessage("Invalid System Clock!");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("시퀀스가 소진되면 기다리지 않고 다음 밀리초를 앞당겨 사용한다")
+    void borrowNextMillis(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        sut.nextIds(4_096);
+
+        // when
+        long actual = sut.nextId();
+
+        // then
+        assertThat(sut.parse(actual)[0]).isEqualTo(EPOCH + 1_001L);
+        assertThat(sut.getBorrowCount()).isEqualTo(1L);
+        assertThat(sut.getParkCount()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("앞당겨 발급한 뒤 같은 밀리초에 다시 발급해도 시계가 뒤로 간 것으로 세지 않고, 앞선 정도를 따로 기록한다")
+    void borrowIsNotClockBackward(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        sut.nextIds(4_096 * 2);
+
+        // when
+        sut.nextId();
+        sut.nextId();
+
+        // then
+        assertThat(sut.getClockBackwardCount()).isZero();
+        assertThat(sut.getMaxBorrowLagMillis()).isEqualTo(2L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("앞당길 수 있는 범위를 넘으면 시계가 따라올 때까지 대기한다")
+    void parkBeyondTolerance(Snowflake.Mode mode) throws Exception {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 1L, clock::get);
+        sut.nextIds(4_096 * 2);
+
+        // when
+        Thread ticker = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            clock.incrementAndGet();
+        });
+        ticker.start();
+        long actual = sut.nextId();
+        ticker.join();
+
+        // then
+        assertThat(sut.parse(actual)[0]).isEqualTo(EPOCH + 1_002L);
+        assertThat(sut.getParkCount()).isPositive();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("특정 시각에 발급된 id는 해당 시각의 최소 id와 최대 id 사이에 있다")
+    void idBoundsAt(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1023L, EPOCH, mode, 0L, clock::get);
+        Instant givenInstant = Instant.ofEpochMilli(EPOCH + 1_000L);
+
+        // when
+        long actual = sut.nextId();
+
+        // then
+        assertThat(actual).isBetween(sut.minIdAt(givenInstant), sut.maxIdAt(givenInstant));
+        assertThat(sut.maxIdAt(givenInstant.minusMillis(1))).isLessThan(sut.minIdAt(givenInstant));
+        assertThat(sut.minIdAt(givenInstant.plusMillis(1))).isGreaterThan(sut.maxIdAt(givenInstant));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("fence 이후에는 id를 발급하지 않고, 마지막으로 발급한 시각을 돌려준다")
+    void fence(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        sut.nextIds(4_097);
+
+        // when
+        long actual = sut.fence();
+
+        // then
+        assertThat(actual).isEqualTo(EPOCH + 1_001L);
+        assertThatThrownBy(sut::nextId
+        ).isInstanceOf(IllegalStateException.class)
+                .hasMessage("Snowflake is fenced - nodeId: 1");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("발급 허용 시각을 넘는 id는 앞당겨서도 발급하지 않는다")
+    void issueUntil(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        sut.issueUntil(EPOCH + 1_000L);
+        sut.nextIds(4_096);
+
+        // then
+        assertThatThrownBy(sut::nextId
+        ).isInstanceOf(IllegalStateException.class)
+                .hasMessage("Snowflake may not issue ids after " + (EPOCH + 1_000L) + " - nodeId: 1");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Snowflake.Mode.class)
+    @DisplayName("같은 nodeId의 이전 생성기가 멈춘 시각 이후의 id만 발급한다")
+    void resumeAfter(Snowflake.Mode mode) {
+        // given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000L);
+        Snowflake previous = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+        long[] issued = previous.nextIds(4_097);
+        Snowflake sut = new Snowflake(1L, EPOCH, mode, 10L, clock::get);
+
+        // when
+        sut.resumeAfter(previous.fence());
+        long actual = sut.nextId();
+
+        // then
+        assertThat(actual).isGreaterThan(issued[issued.length - 1]);
+        assertThat(sut.parse(actual)[0]).isEqualTo(EPOCH + 1_002L);
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
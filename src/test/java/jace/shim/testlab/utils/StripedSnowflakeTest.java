@@ -0,0 +1,110 @@
+package jace.shim.testlab.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedSnowflakeTest {
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    @DisplayName("64개 이상의 스레드가 동시에 발급한 id는 모두 유일하다")
+    void uniqueAcrossThreads() throws Exception {
+        // given
+        StripedSnowflake sut = new StripedSnowflake(3L, 8);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // when
+        runConcurrently(() -> {
+            for (int i = 0; i < IDS_PER_THREAD / 10; i++) {
+                ids.add(sut.nextId());
+                for (long id : sut.nextIds(9)) {
+                    ids.add(id);
+                }
+            }
+        });
+
+        // then
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @Test
+    @DisplayName("스트라이프마다 baseNodeId와 스트라이프 번호로 구성된 nodeId를 사용한다")
+    void stripeNodeId() throws Exception {
+        // given
+        StripedSnowflake sut = new StripedSnowflake(3L, 8);
+        Set<Long> nodeIds = ConcurrentHashMap.newKeySet();
+
+        // when
+        runConcurrently(() -> nodeIds.add(sut.parse(sut.nextId())[1]));
+
+        // then
+        assertThat(nodeIds).allSatisfy(nodeId -> assertThat(nodeId >> 3).isEqualTo(3L));
+        assertThat(nodeIds).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("발급된 id의 시각은 발급 시점과 같은 밀리초 범위에 있다")
+    void roughlyTimeOrdered() {
+        // given
+        StripedSnowflake sut = new StripedSnowflake(3L, 8);
+        long before = System.currentTimeMillis();
+
+        // when
+        long actual = sut.parse(sut.nextId())[0];
+
+        // then
+        assertThat(actual).isBetween(before - 1, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    @DisplayName("스트라이프 수가 2의 거듭제곱이 아니면 에러가 발생한다")
+    void stripeCountNotPowerOfTwo() {
+        assertThatThrownBy(() -> new StripedSnowflake(1L, 6)
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("StripeCount must be a power of two between 1 and 1024");
+    }
+
+    @Test
+    @DisplayName("baseNodeId가 스트라이프 비트를 제외한 범위를 넘으면 에러가 발생한다")
+    void baseNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new StripedSnowflake(128L, 8)
+        ).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("BaseNodeId must be between 0 and 127");
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}